@@ -8,13 +8,21 @@ import com.library.repository.PatronRepository;
 import com.library.service.BookService;
 import com.library.service.LoanService;
 import com.library.service.PatronService;
+import com.library.simulation.WorkloadSimulator;
 import com.library.strategy.SearchByAuthor;
 import com.library.strategy.SearchByISBN;
 import com.library.strategy.SearchByTitle;
+import java.util.Arrays;
 
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0 && args[0].equals("simulate")) {
+            // Workload simulation mode, see SimulationConfig for the options
+            WorkloadSimulator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         System.out.println("=== Library Management System ===\n");
 
         // Initialize repositories
@@ -0,0 +1,85 @@
+package com.library.admission;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs operations under per-class concurrency limits so that one kind of traffic cannot
+ * starve another.
+ *
+ * Each {@link OperationClass} has its own bounded queue and adaptive limit. An operation that
+ * finds no free slot waits in its class's queue; if the queue is full, or the wait runs past
+ * the policy's maximum, it fails fast with a {@link RejectedOperationException} carrying a retry
+ * hint. When a class runs over its latency target, every lower-priority class is throttled as
+ * well, so a search storm gives way as soon as checkouts slow down.
+ */
+public class AdmissionController {
+    private final Map<OperationClass, AdmissionLane> lanes;
+
+    /**
+     * Creates a controller with the default policy for every class.
+     */
+    public AdmissionController() {
+        this(new EnumMap<>(OperationClass.class));
+    }
+
+    /**
+     * Creates a controller.
+     * @param policies Policies by class; classes left out get {@link AdmissionPolicy#defaultFor}
+     */
+    public AdmissionController(Map<OperationClass, AdmissionPolicy> policies) {
+        this.lanes = new EnumMap<>(OperationClass.class);
+        for (OperationClass operationClass : OperationClass.values()) {
+            AdmissionPolicy policy = policies.get(operationClass);
+            lanes.put(operationClass, new AdmissionLane(operationClass,
+                    policy != null ? policy : AdmissionPolicy.defaultFor(operationClass)));
+        }
+    }
+
+    /**
+     * Runs an operation once its class has a free slot.
+     * @param operationClass The class to admit the operation under
+     * @param operation The operation
+     * @return The operation's result
+     * @throws RejectedOperationException If the class is overloaded; the operation did not run
+     */
+    public <T> T execute(OperationClass operationClass, Supplier<T> operation) {
+        AdmissionLane lane = lanes.get(operationClass);
+        long admittedAt = lane.acquire();
+        try {
+            return operation.get();
+        } finally {
+            if (lane.release(admittedAt)) {
+                for (OperationClass lower : OperationClass.values()) {
+                    if (lower.compareTo(operationClass) > 0) {
+                        lanes.get(lower).shed();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the current limit and counters of one class.
+     * @param operationClass The class
+     * @return The stats
+     */
+    public AdmissionStats getStats(OperationClass operationClass) {
+        return lanes.get(operationClass).getStats();
+    }
+
+    /**
+     * Gets the current limit and counters of every class, in priority order.
+     * @return The stats
+     */
+    public List<AdmissionStats> getStats() {
+        List<AdmissionStats> stats = new ArrayList<>();
+        for (AdmissionLane lane : lanes.values()) {
+            stats.add(lane.getStats());
+        }
+        return stats;
+    }
+}
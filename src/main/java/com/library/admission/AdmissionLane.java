@@ -0,0 +1,217 @@
+package com.library.admission;
+
+import com.library.util.LoggerUtil;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Admission state of one operation class: a concurrency limit, a bounded FIFO of waiting
+ * callers and the latency window that drives the limit.
+ *
+ * A freed slot is handed straight to the oldest waiter, so callers that arrive while others
+ * are queued cannot jump ahead. The limit follows additive increase, multiplicative decrease:
+ * after each window of completed operations it drops by a quarter if their mean running time
+ * exceeded the target, or grows by one if they stayed under it while every slot was in use.
+ */
+final class AdmissionLane {
+    private static final double DECREASE_FACTOR = 0.75;
+    private static final int MIN_WINDOW_SAMPLES = 16;
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final long MIN_RETRY_AFTER_MILLIS = 5;
+    private static final long MAX_RETRY_AFTER_MILLIS = 10_000;
+    private static final long LOG_INTERVAL_NANOS = 5_000_000_000L;
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    /**
+     * A queued caller; granted is set under the lane lock before the caller is unparked.
+     */
+    private static final class Waiter {
+        final Thread thread;
+        volatile boolean granted;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private final OperationClass operationClass;
+    private final AdmissionPolicy policy;
+    private final ReentrantLock lock;
+    private final ArrayDeque<Waiter> waiters;
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private int windowSamples;
+    private long windowLatencyNanos;
+    private int windowPeakInFlight;
+    private double meanLatencyNanos;
+    private long admitted;
+    private long admittedFromQueue;
+    private long rejected;
+    private long timedOut;
+    private long lastLogNanos;
+
+    AdmissionLane(OperationClass operationClass, AdmissionPolicy policy) {
+        this.operationClass = operationClass;
+        this.policy = policy;
+        this.lock = new ReentrantLock();
+        this.waiters = new ArrayDeque<>();
+        this.limit = policy.getInitialLimit();
+        this.lastLogNanos = System.nanoTime() - LOG_INTERVAL_NANOS;
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if all are in use.
+     * @return The admission time, to pass to {@link #release(long)}
+     * @throws RejectedOperationException If the queue is full, the wait ran out or the caller was interrupted
+     */
+    long acquire() {
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < currentLimit()) {
+                admit();
+                return System.nanoTime();
+            }
+            if (waiters.size() >= policy.getQueueCapacity()) {
+                rejected++;
+                throw reject("queue full");
+            }
+            waiter = new Waiter(Thread.currentThread());
+            waiters.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        long deadline = System.nanoTime() + policy.getMaxQueueWaitNanos();
+        while (!waiter.granted) {
+            boolean interrupted = Thread.interrupted();
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || interrupted) {
+                lock.lock();
+                try {
+                    if (!waiter.granted) {
+                        waiters.remove(waiter);
+                        timedOut++;
+                        if (interrupted) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw reject(interrupted ? "interrupted while queued" : "queue wait exceeded");
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt(); // Granted anyway; keep the flag for the caller
+                }
+                break;
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Frees a slot, records the operation's running time and hands the slot to the next waiter.
+     * @param admittedAt The value returned by {@link #acquire()}
+     * @return true if this completed a latency window that was over the target
+     */
+    boolean release(long admittedAt) {
+        long latency = System.nanoTime() - admittedAt;
+        lock.lock();
+        try {
+            inFlight--;
+            meanLatencyNanos = meanLatencyNanos == 0
+                    ? latency
+                    : meanLatencyNanos + LATENCY_SMOOTHING * (latency - meanLatencyNanos);
+            windowSamples++;
+            windowLatencyNanos += latency;
+            boolean overloaded = false;
+            if (windowSamples >= Math.max(MIN_WINDOW_SAMPLES, currentLimit())) {
+                overloaded = closeWindow();
+            }
+            grantWaiters();
+            return overloaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cuts the limit because a higher-priority class is over its latency target.
+     */
+    void shed() {
+        lock.lock();
+        try {
+            decrease();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    AdmissionStats getStats() {
+        lock.lock();
+        try {
+            return new AdmissionStats(operationClass, currentLimit(), inFlight, waiters.size(), admitted,
+                    admittedFromQueue, rejected, timedOut, meanLatencyNanos / 1_000_000.0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean closeWindow() {
+        long windowMean = windowLatencyNanos / windowSamples;
+        boolean overloaded = windowMean > policy.getTargetLatencyNanos();
+        if (overloaded) {
+            decrease();
+        } else if (windowPeakInFlight >= currentLimit()) {
+            limit = Math.min(policy.getMaxLimit(), limit + 1);
+        }
+        windowSamples = 0;
+        windowLatencyNanos = 0;
+        windowPeakInFlight = inFlight;
+        return overloaded;
+    }
+
+    private void decrease() {
+        limit = Math.max(policy.getMinLimit(), limit * DECREASE_FACTOR);
+    }
+
+    private void grantWaiters() {
+        while (inFlight < currentLimit() && !waiters.isEmpty()) {
+            Waiter waiter = waiters.pollFirst();
+            admit();
+            admittedFromQueue++;
+            waiter.granted = true;
+            LockSupport.unpark(waiter.thread);
+        }
+    }
+
+    private void admit() {
+        inFlight++;
+        admitted++;
+        windowPeakInFlight = Math.max(windowPeakInFlight, inFlight);
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private RejectedOperationException reject(String reason) {
+        // Time for the queue ahead to drain at the current limit and latency
+        double slotNanos = meanLatencyNanos / currentLimit();
+        long retryAfterMillis = (long) ((waiters.size() + 1) * slotNanos / 1_000_000);
+        retryAfterMillis = Math.max(MIN_RETRY_AFTER_MILLIS, Math.min(MAX_RETRY_AFTER_MILLIS, retryAfterMillis));
+        long now = System.nanoTime();
+        if (now - lastLogNanos >= LOG_INTERVAL_NANOS) {
+            lastLogNanos = now;
+            logger.warning("Shedding " + operationClass + " load: " + reason + " (limit " + currentLimit()
+                    + ", in flight " + inFlight + ", queued " + waiters.size() + ", rejected " + (rejected + timedOut)
+                    + " so far)");
+        }
+        return new RejectedOperationException(operationClass, reason, retryAfterMillis);
+    }
+}
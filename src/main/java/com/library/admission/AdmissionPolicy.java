@@ -0,0 +1,112 @@
+package com.library.admission;
+
+import java.time.Duration;
+
+/**
+ * Queue and concurrency settings for one operation class.
+ *
+ * The concurrency limit starts at the initial value and adapts between the minimum and maximum:
+ * it shrinks when the mean latency of recent operations exceeds the target and grows by one
+ * when operations stay under the target while the limit is fully used.
+ */
+public class AdmissionPolicy {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final long maxQueueWaitNanos;
+    private final long targetLatencyNanos;
+
+    /**
+     * Creates a policy.
+     * @param initialLimit Operations allowed to run at once before any latency is observed
+     * @param minLimit The lowest the limit may shrink to, at least 1
+     * @param maxLimit The highest the limit may grow to
+     * @param queueCapacity How many callers may wait for a slot; further callers are rejected at once
+     * @param maxQueueWait How long a caller waits for a slot before it is rejected
+     * @param targetLatency The mean running time the limit is adjusted to keep under
+     */
+    public AdmissionPolicy(int initialLimit, int minLimit, int maxLimit, int queueCapacity,
+                           Duration maxQueueWait, Duration targetLatency) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit
+                || queueCapacity < 0 || maxQueueWait.isNegative() || targetLatency.isNegative()
+                || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Invalid admission policy");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.targetLatencyNanos = targetLatency.toNanos();
+    }
+
+    /**
+     * Gets the default policy for an operation class, scaled to the number of cores.
+     * Circulation gets generous limits and a tight latency target; searches and reports
+     * get a few slots each and short queues so a burst of them is shed instead of piling up.
+     * @param operationClass The operation class
+     * @return The default policy
+     */
+    public static AdmissionPolicy defaultFor(OperationClass operationClass) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        switch (operationClass) {
+            case CIRCULATION:
+                return new AdmissionPolicy(cores * 4, 2, Math.max(256, cores * 4), 1024,
+                        Duration.ofMillis(500), Duration.ofMillis(10));
+            case SEARCH:
+                return new AdmissionPolicy(cores, 1, cores * 4, 64,
+                        Duration.ofMillis(250), Duration.ofMillis(100));
+            case REPORTING:
+                return new AdmissionPolicy(Math.max(1, cores / 2), 1, cores, 16,
+                        Duration.ofSeconds(1), Duration.ofSeconds(1));
+            default:
+                throw new IllegalArgumentException("Unknown operation class " + operationClass);
+        }
+    }
+
+    // Getters
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public Duration getMaxQueueWait() {
+        return Duration.ofNanos(maxQueueWaitNanos);
+    }
+
+    public Duration getTargetLatency() {
+        return Duration.ofNanos(targetLatencyNanos);
+    }
+
+    long getMaxQueueWaitNanos() {
+        return maxQueueWaitNanos;
+    }
+
+    long getTargetLatencyNanos() {
+        return targetLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionPolicy{" +
+                "initialLimit=" + initialLimit +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                ", queueCapacity=" + queueCapacity +
+                ", maxQueueWaitMillis=" + maxQueueWaitNanos / 1_000_000 +
+                ", targetLatencyMillis=" + targetLatencyNanos / 1_000_000 +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+package com.library.admission;
+
+/**
+ * Counters and current limit of one operation class at one point in time.
+ */
+public class AdmissionStats {
+    private final OperationClass operationClass;
+    private final int limit;
+    private final int inFlight;
+    private final int queued;
+    private final long admitted;
+    private final long admittedFromQueue;
+    private final long rejected;
+    private final long timedOut;
+    private final double meanLatencyMillis;
+
+    AdmissionStats(OperationClass operationClass, int limit, int inFlight, int queued, long admitted,
+                   long admittedFromQueue, long rejected, long timedOut, double meanLatencyMillis) {
+        this.operationClass = operationClass;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.admitted = admitted;
+        this.admittedFromQueue = admittedFromQueue;
+        this.rejected = rejected;
+        this.timedOut = timedOut;
+        this.meanLatencyMillis = meanLatencyMillis;
+    }
+
+    // Getters
+    public OperationClass getOperationClass() {
+        return operationClass;
+    }
+
+    /**
+     * Gets the adaptive concurrency limit.
+     * @return How many operations of this class may run at once
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Gets how many operations were allowed to run, with or without waiting.
+     * @return The admitted count
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public long getAdmittedFromQueue() {
+        return admittedFromQueue;
+    }
+
+    /**
+     * Gets how many operations were turned away at once because the queue was full.
+     * @return The rejected count
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets how many operations were turned away after waiting too long in the queue.
+     * @return The timed-out count
+     */
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Gets the smoothed running time of recent operations, excluding time spent queued.
+     * @return The latency in milliseconds
+     */
+    public double getMeanLatencyMillis() {
+        return meanLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionStats{" +
+                "operationClass=" + operationClass +
+                ", limit=" + limit +
+                ", inFlight=" + inFlight +
+                ", queued=" + queued +
+                ", admitted=" + admitted +
+                ", admittedFromQueue=" + admittedFromQueue +
+                ", rejected=" + rejected +
+                ", timedOut=" + timedOut +
+                ", meanLatencyMillis=" + String.format("%.2f", meanLatencyMillis) +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.admission;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.service.PatronService;
+import java.util.List;
+
+/**
+ * Front door for kiosk and desk traffic: the same calls as the services, each admitted
+ * through an {@link AdmissionController} under its operation class.
+ *
+ * Every method may throw {@link RejectedOperationException} when its class is overloaded,
+ * in which case the call did not reach the service.
+ */
+public class LibraryGateway {
+    private final AdmissionController admissionController;
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final LoanService loanService;
+
+    public LibraryGateway(AdmissionController admissionController, BookService bookService,
+                          PatronService patronService, LoanService loanService) {
+        this.admissionController = admissionController;
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.loanService = loanService;
+    }
+
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    // Circulation
+    public boolean checkoutBook(String isbn, int patronId) {
+        return admissionController.execute(OperationClass.CIRCULATION,
+                () -> loanService.checkoutBook(isbn, patronId));
+    }
+
+    public boolean returnBook(String isbn, int patronId) {
+        return admissionController.execute(OperationClass.CIRCULATION,
+                () -> loanService.returnBook(isbn, patronId));
+    }
+
+    public Book getBookByISBN(String isbn) {
+        return admissionController.execute(OperationClass.CIRCULATION, () -> bookService.getBookByISBN(isbn));
+    }
+
+    public Patron getPatronById(int patronId) {
+        return admissionController.execute(OperationClass.CIRCULATION, () -> patronService.getPatronById(patronId));
+    }
+
+    public boolean addPatron(Patron patron) {
+        return admissionController.execute(OperationClass.CIRCULATION, () -> patronService.addPatron(patron));
+    }
+
+    // Search
+    public List<Book> searchBooks(String query) {
+        return admissionController.execute(OperationClass.SEARCH, () -> bookService.searchBooks(query));
+    }
+
+    public List<Patron> searchPatronsByName(String prefix, int limit) {
+        return admissionController.execute(OperationClass.SEARCH,
+                () -> patronService.searchPatronsByName(prefix, limit));
+    }
+
+    // Reporting
+    public List<Book> getAllBooks() {
+        return admissionController.execute(OperationClass.REPORTING, bookService::getAllBooks);
+    }
+
+    public List<Book> getAvailableBooks() {
+        return admissionController.execute(OperationClass.REPORTING, loanService::getAvailableBooks);
+    }
+
+    public List<Book> getBorrowedBooks() {
+        return admissionController.execute(OperationClass.REPORTING, loanService::getBorrowedBooks);
+    }
+
+    public List<Loan> getActiveLoans() {
+        return admissionController.execute(OperationClass.REPORTING, loanService::getActiveLoans);
+    }
+
+    public List<Loan> getBorrowingHistory(int patronId) {
+        return admissionController.execute(OperationClass.REPORTING,
+                () -> patronService.getBorrowingHistory(patronId));
+    }
+}
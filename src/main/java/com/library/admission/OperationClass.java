@@ -0,0 +1,15 @@
+package com.library.admission;
+
+/**
+ * Groups of operations that are admitted through separate queues and limits.
+ * Listed from highest to lowest priority: when a class runs over its latency target,
+ * the classes below it are throttled too.
+ */
+public enum OperationClass {
+    /** Checkouts, returns and point lookups at the desk or a kiosk; cheap and latency-sensitive */
+    CIRCULATION,
+    /** Catalog and patron searches; each one scans the catalog */
+    SEARCH,
+    /** Whole-collection listings such as available books and active loans */
+    REPORTING
+}
@@ -0,0 +1,30 @@
+package com.library.admission;
+
+/**
+ * Thrown when an operation is turned away because its class is overloaded.
+ * The operation did not run; callers may try again after the suggested delay.
+ */
+public class RejectedOperationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final OperationClass operationClass;
+    private final long retryAfterMillis;
+
+    public RejectedOperationException(OperationClass operationClass, String reason, long retryAfterMillis) {
+        super(operationClass + " operation rejected: " + reason + ", retry after " + retryAfterMillis + " ms");
+        this.operationClass = operationClass;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public OperationClass getOperationClass() {
+        return operationClass;
+    }
+
+    /**
+     * Gets how long to wait before retrying, estimated from the queue length and recent latency.
+     * @return The delay in milliseconds
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.analytics;
+
+/**
+ * An estimated frequent item returned by a top-K query.
+ * The true count always lies in [count - error, count].
+ */
+public class HeavyHitter {
+    private final String key;
+    private final long count;
+    private final long error;
+
+    public HeavyHitter(String key, long count, long error) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the estimated count, an upper bound on the true count.
+     * @return The estimated count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the maximum overestimation of the count.
+     * @return The error bound
+     */
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * Gets the guaranteed lower bound on the true count.
+     * @return count - error
+     */
+    public long getGuaranteedCount() {
+        return count - error;
+    }
+
+    @Override
+    public String toString() {
+        return "HeavyHitter{" +
+                "key='" + key + '\'' +
+                ", count=" + count +
+                ", error=" + error +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.library.analytics;
+
+import com.library.event.DomainEvent;
+import com.library.event.EventConsumer;
+import com.library.event.EventType;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Streaming "most borrowed" analytics over the last 7, 30 and 365 days.
+ * Subscribe it to the event ring buffer that LoanService publishes to; every
+ * BOOK_CHECKED_OUT event is counted once by title and once by author.
+ *
+ * Memory is fixed at two sketches of {@code capacity} counters per day for 365 days,
+ * regardless of loan volume. Accuracy: with N checkouts in a window, every item borrowed
+ * more than roughly N/capacity times is reported, and each reported count overestimates
+ * the true count by at most the HeavyHitter's error, which is itself at most about N/capacity.
+ * Queries cost O(capacity) once the closed days of a window have been merged for the day.
+ */
+public class PopularityAnalytics implements EventConsumer {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final SlidingWindowTopK titles;
+    private final SlidingWindowTopK authors;
+    private final Clock clock;
+
+    public PopularityAnalytics() {
+        this(DEFAULT_CAPACITY, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates the analytics component.
+     * @param capacity Counters per daily sketch; larger values tighten the error bound
+     * @param clock The clock deciding which day is today
+     */
+    public PopularityAnalytics(int capacity, Clock clock) {
+        int maxDays = TimeWindow.LAST_365_DAYS.getDays();
+        this.titles = new SlidingWindowTopK(capacity, maxDays);
+        this.authors = new SlidingWindowTopK(capacity, maxDays);
+        this.clock = clock;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event, long sequence, boolean endOfBatch) {
+        if (event.getType() == EventType.BOOK_CHECKED_OUT) {
+            LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(event.getTimestamp()), clock.getZone());
+            recordCheckout(event.getTitle(), event.getAuthor(), day);
+        }
+    }
+
+    /**
+     * Counts one checkout. Also usable to backfill from historical loans.
+     * @param title The title of the borrowed book
+     * @param author The author of the borrowed book
+     * @param date The checkout date
+     */
+    public synchronized void recordCheckout(String title, String author, LocalDate date) {
+        long epochDay = date.toEpochDay();
+        titles.record(title, epochDay);
+        authors.record(author, epochDay);
+    }
+
+    /**
+     * Gets the most borrowed titles in a trailing window.
+     * @param window The time window
+     * @param k The number of titles
+     * @return Titles in descending order of estimated checkouts
+     */
+    public synchronized List<HeavyHitter> topTitles(TimeWindow window, int k) {
+        return titles.top(window.getDays(), k, today());
+    }
+
+    /**
+     * Gets the most borrowed authors in a trailing window.
+     * @param window The time window
+     * @param k The number of authors
+     * @return Authors in descending order of estimated checkouts
+     */
+    public synchronized List<HeavyHitter> topAuthors(TimeWindow window, int k) {
+        return authors.top(window.getDays(), k, today());
+    }
+
+    /**
+     * Gets the total number of checkouts counted in a trailing window.
+     * @param window The time window
+     * @return The checkout count
+     */
+    public synchronized long getCheckoutCount(TimeWindow window) {
+        return titles.total(window.getDays(), today());
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+}
@@ -0,0 +1,114 @@
+package com.library.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heavy hitters over trailing windows of days, in fixed memory.
+ *
+ * Keeps one Space-Saving sketch per day in a ring covering the longest window.
+ * A window query merges the days before today once (cached until the day rolls over
+ * or a late event lands in a closed day) and then only merges today's sketch,
+ * so repeated queries cost O(capacity) instead of O(days * capacity).
+ * Not thread-safe; callers synchronize.
+ */
+class SlidingWindowTopK {
+    private final int capacity;
+    private final SpaceSaving[] days;
+    private final long[] dayOf; // Epoch day each ring slot currently holds
+    private final Map<Integer, Summary> closedDaysCache; // Key: window length in days
+    private long cacheDay;
+
+    /**
+     * @param capacity Counters per daily sketch
+     * @param maxDays The longest window that can be queried
+     */
+    SlidingWindowTopK(int capacity, int maxDays) {
+        this.capacity = capacity;
+        this.days = new SpaceSaving[maxDays];
+        this.dayOf = new long[maxDays];
+        Arrays.fill(dayOf, Long.MIN_VALUE);
+        this.closedDaysCache = new HashMap<>();
+        this.cacheDay = Long.MIN_VALUE;
+    }
+
+    /**
+     * Counts one occurrence of an item on the given day.
+     * @param key The item
+     * @param epochDay The day it occurred
+     */
+    void record(String key, long epochDay) {
+        int slot = (int) Math.floorMod(epochDay, (long) days.length);
+        if (dayOf[slot] != epochDay) {
+            if (dayOf[slot] > epochDay) {
+                return; // Older than the longest window
+            }
+            if (days[slot] == null) {
+                days[slot] = new SpaceSaving(capacity);
+            } else {
+                days[slot].clear();
+            }
+            dayOf[slot] = epochDay;
+        }
+        days[slot].offer(key, 1);
+        if (epochDay != cacheDay) {
+            closedDaysCache.clear(); // A closed day changed, or a new day started
+        }
+    }
+
+    /**
+     * Gets the most frequent items over the trailing window ending on today.
+     * @param windowDays The window length in days, at most maxDays
+     * @param k The number of items
+     * @param today The current epoch day
+     * @return Heavy hitters in descending count order
+     */
+    List<HeavyHitter> top(int windowDays, int k, long today) {
+        if (windowDays < 1 || windowDays > days.length) {
+            throw new IllegalArgumentException("Window must be between 1 and " + days.length + " days");
+        }
+        if (today != cacheDay) {
+            closedDaysCache.clear();
+            cacheDay = today;
+        }
+        Summary closed = closedDaysCache.computeIfAbsent(windowDays, w -> mergeDays(today - w + 1, today - 1));
+        List<Summary> parts = new ArrayList<>(2);
+        parts.add(closed);
+        parts.add(summaryOf(today));
+        return Summary.merge(parts, capacity).top(k);
+    }
+
+    /**
+     * Gets the total number of occurrences recorded in the trailing window.
+     * Each day's sketch errs by at most that day's total divided by the sketch capacity.
+     * @param windowDays The window length in days
+     * @param today The current epoch day
+     * @return The total count
+     */
+    long total(int windowDays, long today) {
+        long total = 0;
+        for (long day = today - windowDays + 1; day <= today; day++) {
+            int slot = (int) Math.floorMod(day, (long) days.length);
+            if (dayOf[slot] == day) {
+                total += days[slot].getTotalWeight();
+            }
+        }
+        return total;
+    }
+
+    private Summary mergeDays(long firstDay, long lastDay) {
+        List<Summary> parts = new ArrayList<>();
+        for (long day = firstDay; day <= lastDay; day++) {
+            parts.add(summaryOf(day));
+        }
+        return Summary.merge(parts, capacity);
+    }
+
+    private Summary summaryOf(long epochDay) {
+        int slot = (int) Math.floorMod(epochDay, (long) days.length);
+        return dayOf[slot] == epochDay ? days[slot].toSummary() : Summary.EMPTY;
+    }
+}
@@ -0,0 +1,141 @@
+package com.library.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter sketch (Metwally, Agrawal, El Abbadi) over a fixed number of counters.
+ *
+ * With capacity m after a total weight of N has been offered:
+ * every item whose true count exceeds N/m is guaranteed to be monitored,
+ * and each reported count overestimates the true count by at most its error, which is at most N/m.
+ * Counters are kept in an indexed min-heap, so each update costs O(log m) and memory never grows past m entries.
+ * Not thread-safe; callers synchronize.
+ */
+class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap; // Min-heap on count
+    private int size;
+    private long totalWeight;
+
+    private static final class Counter {
+        final String key;
+        long count;
+        long error;
+        int heapIndex;
+
+        Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Counts an occurrence of an item.
+     * @param key The item
+     * @param weight The number of occurrences
+     */
+    void offer(String key, long weight) {
+        totalWeight += weight;
+        Counter counter = counters.get(key);
+        if (counter == null && size < capacity) {
+            // A new counter goes in at the bottom of the heap, so it can only need to move up
+            counter = new Counter(key);
+            counter.count = weight;
+            heap[size] = counter;
+            counters.put(key, counter);
+            siftUp(size++);
+            return;
+        }
+        if (counter == null) {
+            // Evict the minimum and let the newcomer inherit its count as error
+            Counter evicted = heap[0];
+            counters.remove(evicted.key);
+            counter = new Counter(key);
+            counter.count = evicted.count;
+            counter.error = evicted.count;
+            heap[0] = counter;
+            counters.put(key, counter);
+        }
+        // Counts only grow, so a counter already in the heap can only need to move down
+        counter.count += weight;
+        siftDown(counter.heapIndex);
+    }
+
+    /**
+     * Gets the smallest monitored count; any unmonitored item occurred at most this often.
+     * @return The minimum count, or 0 while the sketch still has free counters
+     */
+    long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    long getTotalWeight() {
+        return totalWeight;
+    }
+
+    void clear() {
+        counters.clear();
+        for (int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        size = 0;
+        totalWeight = 0;
+    }
+
+    /**
+     * Freezes the current counters into a mergeable summary.
+     * @return A summary whose absent-key bound is this sketch's minimum count
+     */
+    Summary toSummary() {
+        Map<String, long[]> entries = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            entries.put(heap[i].key, new long[] {heap[i].count, heap[i].error});
+        }
+        return new Summary(entries, minCount());
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int smallest = right < size && heap[right].count < heap[left].count ? right : left;
+            if (heap[smallest].count >= counter.count) {
+                break;
+            }
+            heap[index] = heap[smallest];
+            heap[index].heapIndex = index;
+            index = smallest;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+}
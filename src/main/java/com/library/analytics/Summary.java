@@ -0,0 +1,84 @@
+package com.library.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, mergeable heavy-hitter summary.
+ * Each entry holds an estimated count and error such that count - error <= true count <= count.
+ * A key that is absent occurred at most absentBound times, so it is treated as
+ * count = error = absentBound when summaries are merged. This keeps the bounds valid
+ * across merges (Agarwal et al., "Mergeable Summaries").
+ */
+class Summary {
+    static final Summary EMPTY = new Summary(new HashMap<>(), 0);
+
+    private final Map<String, long[]> entries; // Value: {count, error}
+    private final long absentBound;
+
+    Summary(Map<String, long[]> entries, long absentBound) {
+        this.entries = entries;
+        this.absentBound = absentBound;
+    }
+
+    /**
+     * Merges summaries of disjoint sub-streams and keeps the largest entries.
+     * Runs in time proportional to the total number of entries, not keys times summaries.
+     * @param summaries The summaries to merge
+     * @param keep The maximum number of entries to retain
+     * @return The merged summary
+     */
+    static Summary merge(List<Summary> summaries, int keep) {
+        long absentTotal = 0;
+        for (Summary summary : summaries) {
+            absentTotal += summary.absentBound;
+        }
+
+        // Start every key at the all-absent bound, then swap in each summary's real values
+        Map<String, long[]> merged = new HashMap<>();
+        for (Summary summary : summaries) {
+            for (Map.Entry<String, long[]> entry : summary.entries.entrySet()) {
+                long[] bounds = merged.computeIfAbsent(entry.getKey(), k -> new long[2]);
+                bounds[0] += entry.getValue()[0] - summary.absentBound;
+                bounds[1] += entry.getValue()[1] - summary.absentBound;
+            }
+        }
+        for (long[] bounds : merged.values()) {
+            bounds[0] += absentTotal;
+            bounds[1] += absentTotal;
+        }
+
+        if (merged.size() <= keep) {
+            return new Summary(merged, absentTotal);
+        }
+        List<Map.Entry<String, long[]>> ranked = new ArrayList<>(merged.entrySet());
+        ranked.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        Map<String, long[]> kept = new HashMap<>(keep * 2);
+        for (int i = 0; i < keep; i++) {
+            kept.put(ranked.get(i).getKey(), ranked.get(i).getValue());
+        }
+        // A dropped key may have been counted up to the largest dropped estimate
+        long droppedBound = Math.max(absentTotal, ranked.get(keep).getValue()[0]);
+        return new Summary(kept, droppedBound);
+    }
+
+    /**
+     * Gets the k entries with the highest estimated counts.
+     * @param k The number of entries
+     * @return Heavy hitters in descending count order
+     */
+    List<HeavyHitter> top(int k) {
+        List<HeavyHitter> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+            result.add(new HeavyHitter(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        result.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    long getAbsentBound() {
+        return absentBound;
+    }
+}
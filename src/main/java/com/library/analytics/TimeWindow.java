@@ -0,0 +1,21 @@
+package com.library.analytics;
+
+/**
+ * The trailing time windows popularity can be queried over.
+ * Each window ends with, and includes, the current day.
+ */
+public enum TimeWindow {
+    LAST_7_DAYS(7),
+    LAST_30_DAYS(30),
+    LAST_365_DAYS(365);
+
+    private final int days;
+
+    TimeWindow(int days) {
+        this.days = days;
+    }
+
+    public int getDays() {
+        return days;
+    }
+}
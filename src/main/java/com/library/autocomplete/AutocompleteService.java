@@ -0,0 +1,437 @@
+package com.library.autocomplete;
+
+import com.library.event.DomainEvent;
+import com.library.event.EventConsumer;
+import com.library.model.Book;
+import com.library.util.LoggerUtil;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Search-box autocomplete over book titles and authors.
+ *
+ * Titles and authors live in two radix tries keyed by normalized text (lower case,
+ * accents stripped, punctuation folded to single spaces). Each is indexed under every
+ * word start, so "gat" completes "The Great Gatsby". Every trie node caches its best
+ * completions, so a lookup walks at most the prefix length and copies at most
+ * {@code maxResults} entries, however large the catalog.
+ *
+ * Ranking is by checkouts of the books behind a suggestion, then by shorter text.
+ * Subscribe the service to the event ring buffer that BookService and LoanService
+ * publish to and it follows catalog additions, updates, removals and checkouts;
+ * call {@link #loadCatalog(Collection)} once to index books that existed beforehand.
+ *
+ * Each ISBN remembers the catalog version it was indexed at, and an add or update carrying
+ * an older version is ignored, so an event that raced with loading the catalog cannot undo
+ * a newer revision. If the service falls behind and the ring buffer overwrites events it
+ * had not read, it re-reads the catalog from the source given at construction.
+ */
+public class AutocompleteService implements EventConsumer {
+    public static final int DEFAULT_MAX_RESULTS = 10;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int maxResults;
+    private final Index titles;
+    private final Index authors;
+    private final Map<String, Long> versions; // Key: ISBN, Value: catalog version indexed; guarded by lock
+    private final Supplier<? extends Collection<Book>> catalog;
+    private final ReentrantReadWriteLock lock;
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    public AutocompleteService() {
+        this(DEFAULT_MAX_RESULTS);
+    }
+
+    /**
+     * Creates the service without a catalog source; missed events are then only logged.
+     * @param maxResults The most completions a single lookup can return
+     */
+    public AutocompleteService(int maxResults) {
+        this(maxResults, null);
+    }
+
+    /**
+     * Creates the service.
+     * @param maxResults The most completions a single lookup can return
+     * @param catalog Reads the current catalog, e.g. {@code bookService::getAllBooks}, to
+     *                rebuild from after missed events; may be null
+     */
+    public AutocompleteService(int maxResults, Supplier<? extends Collection<Book>> catalog) {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive");
+        }
+        this.maxResults = maxResults;
+        this.titles = new Index(CompletionType.TITLE, maxResults);
+        this.authors = new Index(CompletionType.AUTHOR, maxResults);
+        this.versions = new HashMap<>();
+        this.catalog = catalog;
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event, long sequence, boolean endOfBatch) {
+        switch (event.getType()) {
+            case BOOK_ADDED:
+            case BOOK_UPDATED:
+                indexRevision(event.getIsbn(), event.getTitle(), event.getAuthor(), event.getBookVersion());
+                break;
+            case BOOK_REMOVED:
+                removeBook(event.getIsbn());
+                break;
+            case BOOK_CHECKED_OUT:
+                recordCheckout(event.getIsbn());
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onOverrun(long missedEvents) {
+        if (catalog == null) {
+            logger.log(Level.WARNING, "Autocomplete missed " + missedEvents
+                    + " events and has no catalog to rebuild from; suggestions may be stale");
+            return;
+        }
+        logger.log(Level.WARNING, "Autocomplete missed " + missedEvents + " events; rebuilding from the catalog");
+        reloadCatalog(catalog.get());
+    }
+
+    /**
+     * Indexes existing books, e.g. the catalog at startup.
+     * A book already indexed at a newer version is left as it is.
+     * @param books The books to index
+     */
+    public void loadCatalog(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                if (isNewer(book.getIsbn(), book.getVersion())) {
+                    put(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getVersion());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes the index match a full catalog read: every book is indexed as given, whatever
+     * version was seen before, and indexed books missing from it are removed.
+     * Checkouts already counted for books that remain are kept.
+     * @param books The complete current catalog
+     */
+    public void reloadCatalog(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            Set<String> stale = new HashSet<>(titles.byIsbn.keySet());
+            stale.addAll(authors.byIsbn.keySet());
+            for (Book book : books) {
+                stale.remove(book.getIsbn());
+                put(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getVersion());
+            }
+            for (String isbn : stale) {
+                titles.remove(isbn);
+                authors.remove(isbn);
+                versions.remove(isbn);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book, or moves it to its new title and author if it is already indexed.
+     * Checkouts already counted for the book move with it.
+     * @param isbn The ISBN of the book
+     * @param title The title
+     * @param author The author
+     */
+    public void indexBook(String isbn, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            titles.put(isbn, title);
+            authors.put(isbn, author);
+            versions.remove(isbn); // Unversioned, so the next revision of any version applies
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a catalog revision unless a newer one of the same book is already indexed.
+     * @param isbn The ISBN of the book
+     * @param title The title
+     * @param author The author
+     * @param version The book's catalog version
+     * @return true if the revision was applied
+     */
+    public boolean indexRevision(String isbn, String title, String author, long version) {
+        lock.writeLock().lock();
+        try {
+            if (!isNewer(isbn, version)) {
+                return false;
+            }
+            put(isbn, title, author, version);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book. Its title and author stay suggestible while other books share them.
+     * @param isbn The ISBN of the book
+     */
+    public void removeBook(String isbn) {
+        lock.writeLock().lock();
+        try {
+            titles.remove(isbn);
+            authors.remove(isbn);
+            versions.remove(isbn); // A book added again later starts over at version 0
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts one checkout towards the book's title and author.
+     * @param isbn The ISBN of the borrowed book
+     */
+    public void recordCheckout(String isbn) {
+        lock.writeLock().lock();
+        try {
+            titles.increment(isbn);
+            authors.increment(isbn);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Completes a title prefix.
+     * @param prefix What the user has typed so far
+     * @param limit The maximum number of completions, capped at the configured maximum
+     * @return Titles in descending order of popularity
+     */
+    public List<Completion> completeTitles(String prefix, int limit) {
+        return complete(titles, prefix, limit);
+    }
+
+    /**
+     * Completes an author prefix.
+     * @param prefix What the user has typed so far
+     * @param limit The maximum number of completions, capped at the configured maximum
+     * @return Authors in descending order of popularity
+     */
+    public List<Completion> completeAuthors(String prefix, int limit) {
+        return complete(authors, prefix, limit);
+    }
+
+    /**
+     * Completes a prefix against both titles and authors.
+     * @param prefix What the user has typed so far
+     * @param limit The maximum number of completions, capped at the configured maximum
+     * @return Titles and authors merged in descending order of popularity
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        int n = Math.min(limit, maxResults);
+        if (key.isEmpty() || n <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Suggestion[] titleHits = titles.trie.complete(key);
+            Suggestion[] authorHits = authors.trie.complete(key);
+            List<Completion> results = new ArrayList<>(n);
+            int t = 0;
+            int a = 0;
+            while (results.size() < n && (t < titleHits.length || a < authorHits.length)) {
+                boolean takeTitle = a >= authorHits.length
+                        || (t < titleHits.length && Suggestion.compare(titleHits[t], authorHits[a]) <= 0);
+                if (takeTitle) {
+                    results.add(toCompletion(titleHits[t++], CompletionType.TITLE));
+                } else {
+                    results.add(toCompletion(authorHits[a++], CompletionType.AUTHOR));
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of distinct titles indexed.
+     * @return The title count
+     */
+    public int getTitleCount() {
+        lock.readLock().lock();
+        try {
+            return titles.byKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of distinct authors indexed.
+     * @return The author count
+     */
+    public int getAuthorCount() {
+        lock.readLock().lock();
+        try {
+            return authors.byKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Completion> complete(Index index, String prefix, int limit) {
+        String key = normalize(prefix);
+        int n = Math.min(limit, maxResults);
+        List<Completion> results = new ArrayList<>();
+        if (key.isEmpty() || n <= 0) {
+            return results;
+        }
+        lock.readLock().lock();
+        try {
+            Suggestion[] hits = index.trie.complete(key);
+            for (int i = 0; i < hits.length && i < n; i++) {
+                results.add(toCompletion(hits[i], index.type));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    private boolean isNewer(String isbn, long version) {
+        Long indexed = versions.get(isbn);
+        return indexed == null || version > indexed;
+    }
+
+    private void put(String isbn, String title, String author, long version) {
+        titles.put(isbn, title);
+        authors.put(isbn, author);
+        versions.put(isbn, version);
+    }
+
+    private static Completion toCompletion(Suggestion suggestion, CompletionType type) {
+        return new Completion(suggestion.display, type, suggestion.score);
+    }
+
+    /**
+     * Folds text to the form keys and prefixes are compared in.
+     * @param text The raw text
+     * @return Lower-case words without accents, separated by single spaces
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    /**
+     * One trie plus the bookkeeping needed to keep it in step with the catalog.
+     */
+    private static final class Index {
+        final CompletionType type;
+        final RadixTrie trie;
+        final Map<String, Suggestion> byKey = new HashMap<>(); // Normalized full text -> suggestion
+        final Map<String, Suggestion> byIsbn = new HashMap<>();
+
+        Index(CompletionType type, int maxResults) {
+            this.type = type;
+            this.trie = new RadixTrie(maxResults);
+        }
+
+        void put(String isbn, String text) {
+            String key = normalize(text);
+            Suggestion current = byIsbn.get(isbn);
+            if (current != null && current.keys.get(0).equals(key)) {
+                return;
+            }
+            long borrows = current != null ? remove(isbn) : 0;
+            if (key.isEmpty()) {
+                return;
+            }
+            Suggestion suggestion = byKey.get(key);
+            if (suggestion == null) {
+                suggestion = new Suggestion(text.trim(), wordStarts(key));
+                byKey.put(key, suggestion);
+                for (String wordKey : suggestion.keys) {
+                    trie.put(wordKey, suggestion);
+                }
+            }
+            suggestion.borrowsByIsbn.put(isbn, borrows);
+            byIsbn.put(isbn, suggestion);
+            if (borrows > 0) {
+                suggestion.score += borrows;
+                for (String wordKey : suggestion.keys) {
+                    trie.scoreIncreased(wordKey, suggestion);
+                }
+            }
+        }
+
+        long remove(String isbn) {
+            Suggestion suggestion = byIsbn.remove(isbn);
+            if (suggestion == null) {
+                return 0;
+            }
+            long borrows = suggestion.borrowsByIsbn.remove(isbn);
+            if (suggestion.borrowsByIsbn.isEmpty()) {
+                byKey.remove(suggestion.keys.get(0));
+                for (String wordKey : suggestion.keys) {
+                    trie.remove(wordKey, suggestion);
+                }
+            } else if (borrows > 0) {
+                suggestion.score -= borrows;
+                for (String wordKey : suggestion.keys) {
+                    trie.scoreDecreased(wordKey, suggestion);
+                }
+            }
+            return borrows;
+        }
+
+        void increment(String isbn) {
+            Suggestion suggestion = byIsbn.get(isbn);
+            if (suggestion != null) {
+                suggestion.borrowsByIsbn.merge(isbn, 1L, Long::sum);
+                suggestion.score++;
+                for (String wordKey : suggestion.keys) {
+                    trie.scoreIncreased(wordKey, suggestion);
+                }
+            }
+        }
+
+        /**
+         * Gets the key suffixes starting at each word, full key first.
+         */
+        private static List<String> wordStarts(String key) {
+            List<String> keys = new ArrayList<>();
+            keys.add(key);
+            for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+                keys.add(key.substring(i + 1));
+            }
+            return keys;
+        }
+    }
+}
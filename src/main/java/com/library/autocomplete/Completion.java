@@ -0,0 +1,37 @@
+package com.library.autocomplete;
+
+/**
+ * One autocomplete suggestion, ranked by how often books behind it were borrowed.
+ */
+public class Completion {
+    private final String text;
+    private final CompletionType type;
+    private final long popularity;
+
+    public Completion(String text, CompletionType type, long popularity) {
+        this.text = text;
+        this.type = type;
+        this.popularity = popularity;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public CompletionType getType() {
+        return type;
+    }
+
+    public long getPopularity() {
+        return popularity;
+    }
+
+    @Override
+    public String toString() {
+        return "Completion{" +
+                "text='" + text + '\'' +
+                ", type=" + type +
+                ", popularity=" + popularity +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.autocomplete;
+
+/**
+ * What a completion suggests.
+ */
+public enum CompletionType {
+    TITLE,
+    AUTHOR
+}
@@ -0,0 +1,268 @@
+package com.library.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compressed prefix tree (radix trie) over normalized keys.
+ *
+ * Edges carry whole substrings, so the tree has at most one branching node per distinct
+ * divergence point rather than one node per character. Every node caches the best
+ * {@code maxResults} suggestions of its subtree, so a completion query is a walk down
+ * the prefix followed by returning that cache, independent of how many keys match.
+ * Inserts, removals and score changes refresh the caches along the affected path only;
+ * inserts and score increases merge the one changed suggestion into each cache, while
+ * removals and decreases rebuild only the caches that held the suggestion.
+ * Not thread-safe; the owning service guards it with a read/write lock.
+ */
+class RadixTrie {
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    private final int maxResults;
+    private final Node root;
+
+    private static final class Node {
+        String label;
+        Map<Character, Node> children;
+        Set<Suggestion> suggestions; // Suggestions whose key ends exactly here
+        Suggestion[] top = NONE; // Best suggestions in this subtree, best first
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    RadixTrie(int maxResults) {
+        this.maxResults = maxResults;
+        this.root = new Node("");
+    }
+
+    /**
+     * Indexes a suggestion under a key. Several suggestions may share a key,
+     * e.g. the title "Gatsby" and the last word of "The Great Gatsby".
+     * @param key The normalized key
+     * @param suggestion The suggestion
+     */
+    void put(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            if (node.children == null) {
+                node.children = new HashMap<>(4);
+            }
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                node = child;
+                path.add(node);
+                i = key.length();
+                break;
+            }
+            int common = commonPrefixLength(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> middle -> child
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new HashMap<>(4);
+                middle.children.put(child.label.charAt(0), child);
+                middle.top = child.top;
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        if (node.suggestions == null) {
+            node.suggestions = new HashSet<>(2);
+        }
+        node.suggestions.add(suggestion);
+        promote(path, suggestion);
+    }
+
+    /**
+     * Removes a suggestion from a key, if it is stored there.
+     * @param key The normalized key
+     * @param suggestion The suggestion
+     */
+    void remove(String key, Suggestion suggestion) {
+        List<Node> path = findPath(key);
+        if (path == null) {
+            return;
+        }
+        Node node = path.get(path.size() - 1);
+        node.suggestions.remove(suggestion);
+        if (node.suggestions.isEmpty()) {
+            node.suggestions = null;
+        }
+        // Prune nodes that no longer lead anywhere
+        int last = path.size() - 1;
+        while (last > 0) {
+            Node current = path.get(last);
+            if (current.suggestions != null || (current.children != null && !current.children.isEmpty())) {
+                break;
+            }
+            path.get(last - 1).children.remove(current.label.charAt(0));
+            path.remove(last--);
+        }
+        demote(path, suggestion);
+    }
+
+    /**
+     * Re-ranks the caches along a key's path after the score of a suggestion there went up.
+     * @param key The normalized key
+     * @param suggestion The suggestion
+     */
+    void scoreIncreased(String key, Suggestion suggestion) {
+        List<Node> path = findPath(key);
+        if (path != null) {
+            promote(path, suggestion);
+        }
+    }
+
+    /**
+     * Re-ranks the caches along a key's path after the score of a suggestion there went down.
+     * @param key The normalized key
+     * @param suggestion The suggestion
+     */
+    void scoreDecreased(String key, Suggestion suggestion) {
+        List<Node> path = findPath(key);
+        if (path != null) {
+            demote(path, suggestion);
+        }
+    }
+
+    /**
+     * Gets the best suggestions whose key starts with the prefix.
+     * @param prefix The normalized prefix
+     * @return Cached suggestions, best first; callers must not modify the array
+     */
+    Suggestion[] complete(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children != null ? node.children.get(prefix.charAt(i)) : null;
+            if (child == null) {
+                return NONE;
+            }
+            int common = commonPrefixLength(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return child.top; // Prefix ends on or inside this edge
+            }
+            if (common < child.label.length()) {
+                return NONE; // Diverges inside the edge
+            }
+            node = child;
+            i += common;
+        }
+        return node.top;
+    }
+
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children != null ? node.children.get(key.charAt(i)) : null;
+            if (child == null || !key.startsWith(child.label, i)) {
+                return null;
+            }
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        return node.suggestions != null ? path : null;
+    }
+
+    private void promote(List<Node> path, Suggestion suggestion) {
+        // Only this suggestion moved up, so merging it into each cache is enough
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Suggestion[] best = new Suggestion[maxResults];
+            int size = 0;
+            for (Suggestion existing : node.top) {
+                if (existing != suggestion) {
+                    best[size++] = existing;
+                }
+            }
+            size = offer(best, size, suggestion);
+            node.top = size == maxResults ? best : Arrays.copyOf(best, size);
+        }
+    }
+
+    private void demote(List<Node> path, Suggestion suggestion) {
+        // Entries below a cache's last place may now outrank the suggestion; rebuild where it was
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (contains(node.top, suggestion)) {
+                recomputeTop(node);
+            }
+        }
+    }
+
+    private static boolean contains(Suggestion[] suggestions, Suggestion suggestion) {
+        for (Suggestion existing : suggestions) {
+            if (existing == suggestion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recomputeTop(Node node) {
+        // Bounded insertion: a key shared by many suggestions (a common last word)
+        // costs one pass over them rather than a sort
+        Suggestion[] best = new Suggestion[maxResults];
+        int size = 0;
+        if (node.suggestions != null) {
+            for (Suggestion candidate : node.suggestions) {
+                size = offer(best, size, candidate);
+            }
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                for (Suggestion candidate : child.top) {
+                    size = offer(best, size, candidate);
+                }
+            }
+        }
+        node.top = size == maxResults ? best : Arrays.copyOf(best, size);
+    }
+
+    private static int offer(Suggestion[] best, int size, Suggestion candidate) {
+        if (size == best.length && Suggestion.compare(candidate, best[size - 1]) >= 0) {
+            return size;
+        }
+        for (int i = 0; i < size; i++) {
+            // The same suggestion can sit under several keys (one per title word)
+            if (best[i] == candidate) {
+                return size;
+            }
+        }
+        int position = size < best.length ? size : size - 1;
+        while (position > 0 && Suggestion.compare(candidate, best[position - 1]) < 0) {
+            best[position] = best[position - 1];
+            position--;
+        }
+        best[position] = candidate;
+        return size < best.length ? size + 1 : size;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
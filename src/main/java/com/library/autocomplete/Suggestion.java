@@ -0,0 +1,35 @@
+package com.library.autocomplete;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A distinct title or author in the autocomplete index.
+ * Several books may share one suggestion (editions of a title, books by an author);
+ * its score is the sum of their checkouts. Mutated only under the service's write lock.
+ */
+class Suggestion {
+    final String display;
+    final List<String> keys; // Every normalized key the suggestion is indexed under
+    final Map<String, Long> borrowsByIsbn;
+    long score;
+
+    Suggestion(String display, List<String> keys) {
+        this.display = display;
+        this.keys = keys;
+        this.borrowsByIsbn = new HashMap<>();
+    }
+
+    /**
+     * Orders suggestions by score, then shorter text, then alphabetically.
+     */
+    static int compare(Suggestion a, Suggestion b) {
+        int byScore = Long.compare(b.score, a.score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byLength = Integer.compare(a.display.length(), b.display.length());
+        return byLength != 0 ? byLength : a.display.compareTo(b.display);
+    }
+}
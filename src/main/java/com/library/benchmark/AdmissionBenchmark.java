@@ -0,0 +1,209 @@
+package com.library.benchmark;
+
+import com.library.admission.AdmissionController;
+import com.library.admission.AdmissionStats;
+import com.library.admission.LibraryGateway;
+import com.library.admission.RejectedOperationException;
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.repository.BookRepository;
+import com.library.repository.PatronRepository;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.service.PatronService;
+import com.library.strategy.SearchByTitle;
+import com.library.util.LoggerUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures checkout latency while a storm of catalog searches runs alongside.
+ *
+ * Three runs over the same library: checkouts alone, checkouts with the search storm calling the
+ * services directly, and both going through a {@link LibraryGateway}. Checkouts are paced at a
+ * fixed rate, each followed by returning the book; searchers run flat out and, when rejected,
+ * back off for the suggested retry delay as a well-behaved kiosk would.
+ *
+ * Usage: java com.library.benchmark.AdmissionBenchmark [books] [checkouts/s] [search threads] [seconds]
+ */
+public class AdmissionBenchmark {
+    private static final int CHECKOUT_THREADS = 2;
+    private static final int PATRONS = 10_000;
+    private static final String[] WORDS = {
+        "river", "shadow", "garden", "empire", "winter", "silent", "golden", "broken",
+        "ocean", "forest", "crown", "letters", "night", "stone", "glass", "summer"
+    };
+
+    /**
+     * What one run measured.
+     */
+    private static final class RunResult {
+        long[] checkoutNanos = new long[0];
+        final LongAdder checkoutsRejected = new LongAdder();
+        final LongAdder searches = new LongAdder();
+        final LongAdder searchesRejected = new LongAdder();
+
+        synchronized void addCheckouts(long[] samples, int count) {
+            long[] merged = Arrays.copyOf(checkoutNanos, checkoutNanos.length + count);
+            System.arraycopy(samples, 0, merged, checkoutNanos.length, count);
+            checkoutNanos = merged;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int checkoutRate = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int searchThreads = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Logger logger = LoggerUtil.getLogger();
+        Level previousLevel = logger.getLevel();
+        logger.setLevel(Level.SEVERE);
+        try {
+            System.out.println("=== Admission Control Benchmark ===");
+            System.out.println("Books: " + bookCount + ", checkouts/s: " + checkoutRate + ", search threads: "
+                    + searchThreads + ", duration per run: " + seconds + "s, cores: "
+                    + Runtime.getRuntime().availableProcessors());
+
+            BookRepository bookRepository = new BookRepository(Runtime.getRuntime().availableProcessors());
+            PatronRepository patronRepository = new PatronRepository();
+            BookService bookService = new BookService(bookRepository);
+            PatronService patronService = new PatronService(patronRepository);
+            LoanService loanService = new LoanService(bookRepository, patronRepository);
+            bookService.setSearchStrategy(new SearchByTitle());
+            for (int i = 0; i < bookCount; i++) {
+                String title = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+                bookService.addBook(new Book(title, "Author " + (i % 5000), isbnOf(i), 1900 + (i % 120)));
+            }
+            for (int i = 1; i <= PATRONS; i++) {
+                patronService.addPatron(new Patron(i, "Patron " + i, "patron" + i + "@example.org",
+                        String.format("555-%07d", i)));
+            }
+            LibraryGateway warmUpGateway = new LibraryGateway(new AdmissionController(), bookService,
+                    patronService, loanService);
+            LibraryGateway gateway = new LibraryGateway(new AdmissionController(), bookService, patronService,
+                    loanService);
+
+            run(bookService, loanService, warmUpGateway, bookCount, checkoutRate, 1, 2); // Warm-up, not reported
+            report("checkouts only", run(bookService, loanService, null, bookCount, checkoutRate, 0, seconds));
+            report("search storm, direct", run(bookService, loanService, null, bookCount, checkoutRate,
+                    searchThreads, seconds));
+            report("search storm, gateway", run(bookService, loanService, gateway, bookCount, checkoutRate,
+                    searchThreads, seconds));
+            for (AdmissionStats stats : gateway.getAdmissionController().getStats()) {
+                System.out.println("  " + stats);
+            }
+        } finally {
+            logger.setLevel(previousLevel);
+        }
+    }
+
+    private static RunResult run(BookService bookService, LoanService loanService, LibraryGateway gateway,
+                                 int bookCount, int checkoutRate, int searchThreads, int seconds)
+            throws InterruptedException {
+        RunResult result = new RunResult();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long intervalNanos = 1_000_000_000L * CHECKOUT_THREADS / checkoutRate;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < CHECKOUT_THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(42 + t);
+            threads.add(new Thread(() -> circulate(loanService, gateway, random, bookCount, intervalNanos,
+                    deadline, result), "admission-checkout-" + t));
+        }
+        for (int t = 0; t < searchThreads; t++) {
+            SplittableRandom random = new SplittableRandom(1042 + t);
+            threads.add(new Thread(() -> search(bookService, gateway, random, deadline, result),
+                    "admission-search-" + t));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return result;
+    }
+
+    private static void circulate(LoanService loanService, LibraryGateway gateway, SplittableRandom random,
+                                  int bookCount, long intervalNanos, long deadline, RunResult result) {
+        long[] samples = new long[1024];
+        int count = 0;
+        long next = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Timed from the scheduled start, so a starved thread waking late counts as latency
+            long start = next;
+            next += intervalNanos;
+            String isbn = isbnOf(random.nextInt(bookCount));
+            int patronId = 1 + random.nextInt(PATRONS);
+            try {
+                boolean checkedOut = gateway != null
+                        ? gateway.checkoutBook(isbn, patronId)
+                        : loanService.checkoutBook(isbn, patronId);
+                if (count == samples.length) {
+                    samples = Arrays.copyOf(samples, count * 2);
+                }
+                samples[count++] = System.nanoTime() - start;
+                if (checkedOut) {
+                    if (gateway != null) {
+                        gateway.returnBook(isbn, patronId);
+                    } else {
+                        loanService.returnBook(isbn, patronId);
+                    }
+                }
+            } catch (RejectedOperationException e) {
+                result.checkoutsRejected.increment();
+            }
+        }
+        result.addCheckouts(samples, count);
+    }
+
+    private static void search(BookService bookService, LibraryGateway gateway, SplittableRandom random,
+                               long deadline, RunResult result) {
+        while (System.nanoTime() < deadline) {
+            String query = WORDS[random.nextInt(WORDS.length)];
+            try {
+                if (gateway != null) {
+                    gateway.searchBooks(query);
+                } else {
+                    bookService.searchBooks(query);
+                }
+                result.searches.increment();
+            } catch (RejectedOperationException e) {
+                result.searchesRejected.increment();
+                LockSupport.parkNanos(e.getRetryAfterMillis() * 1_000_000L);
+            }
+        }
+    }
+
+    private static void report(String label, RunResult result) {
+        long[] latencies = result.checkoutNanos;
+        Arrays.sort(latencies);
+        System.out.printf("%-22s checkouts=%6d p50=%8.3f ms p99=%8.3f ms max=%8.3f ms rejected=%d"
+                        + " | searches=%6d rejected=%d%n", label, latencies.length,
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0.0,
+                result.checkoutsRejected.sum(), result.searches.sum(), result.searchesRejected.sum());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String isbnOf(int index) {
+        return String.format("978%010d", index);
+    }
+}
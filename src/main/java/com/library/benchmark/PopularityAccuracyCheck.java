@@ -0,0 +1,264 @@
+package com.library.benchmark;
+
+import com.library.analytics.HeavyHitter;
+import com.library.analytics.PopularityAnalytics;
+import com.library.analytics.TimeWindow;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Checks PopularityAnalytics against exact counts kept in hash maps.
+ *
+ * Draws Zipf-distributed checkouts over 400 days ending today, with the popular titles
+ * drifting every month so the 7, 30 and 365 day windows differ, and replays them three
+ * times: in the order drawn, and with each day's checkouts grouped by title, heaviest and
+ * lightest first. Grouping is adversarial for the sketch, since a popular title's whole day
+ * arrives before or after the long tail. Every title and author is counted exactly alongside.
+ * For each replay and window it then verifies the documented guarantees: the checkout total
+ * is exact, every reported item satisfies count - error <= true count <= count, every error is
+ * at most N/capacity, and every item borrowed more than N/capacity times is reported. A tiny
+ * case with two counters, where one title's checkouts all come first, runs before them.
+ * Exits with status 1 if any guarantee is violated.
+ *
+ * Usage: java com.library.benchmark.PopularityAccuracyCheck [checkouts] [titles] [capacity] [zipf skew]
+ */
+public class PopularityAccuracyCheck {
+    private static final int DAYS = 400;
+    private static final int DRIFT_DAYS = 30;
+    private static final int TITLES_PER_AUTHOR = 7;
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+
+    /**
+     * The order a day's checkouts are replayed in.
+     */
+    private enum Ordering {
+        AS_DRAWN, HEAVIEST_FIRST, LIGHTEST_FIRST
+    }
+
+    /**
+     * Exact counts for one window.
+     */
+    private static final class ExactCounts {
+        final Map<String, Long> titles = new HashMap<>();
+        final Map<String, Long> authors = new HashMap<>();
+        long total;
+
+        void record(String title, String author) {
+            titles.merge(title, 1L, Long::sum);
+            authors.merge(author, 1L, Long::sum);
+            total++;
+        }
+    }
+
+    public static void main(String[] args) {
+        int checkouts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int titleCount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : PopularityAnalytics.DEFAULT_CAPACITY;
+        double skew = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+
+        System.out.println("=== Popularity Accuracy Check ===");
+        System.out.println("Checkouts: " + checkouts + ", titles: " + titleCount + ", capacity: " + capacity
+                + ", zipf skew: " + skew + ", days: " + DAYS);
+
+        LocalDate today = LocalDate.of(2024, 6, 30);
+        Clock clock = Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        int violations = checkMinimalCase(clock);
+
+        // Draw the titles once, day by day, so every replay sees the same checkouts
+        double[] cumulative = zipfCumulative(titleCount, skew);
+        SplittableRandom random = new SplittableRandom(42);
+        int[][] days = new int[DAYS][];
+        for (int dayIndex = 0; dayIndex < DAYS; dayIndex++) {
+            int first = (int) ((long) dayIndex * checkouts / DAYS);
+            int next = (int) ((long) (dayIndex + 1) * checkouts / DAYS);
+            days[dayIndex] = new int[next - first];
+            for (int i = 0; i < days[dayIndex].length; i++) {
+                // Shift which titles are popular each month
+                int rank = sample(cumulative, random.nextDouble());
+                days[dayIndex][i] = (rank + (dayIndex / DRIFT_DAYS) * 997) % titleCount;
+            }
+        }
+
+        for (Ordering ordering : Ordering.values()) {
+            violations += replay(ordering, days, today, clock, capacity);
+        }
+
+        if (violations > 0) {
+            System.out.println("FAILED: " + violations + " violation(s)");
+            System.exit(1);
+        }
+        System.out.println("PASSED: all bounds hold");
+    }
+
+    /**
+     * Two counters; "a" is borrowed three times before "b" and "c" once each. With N = 5 only
+     * "a" is above N/capacity = 2.5, so it must be reported, with its true count within bounds.
+     * @return The number of violations
+     */
+    private static int checkMinimalCase(Clock clock) {
+        PopularityAnalytics analytics = new PopularityAnalytics(2, clock);
+        LocalDate today = LocalDate.now(clock);
+        for (String title : new String[] {"a", "a", "a", "b", "c"}) {
+            analytics.recordCheckout(title, "Author " + title, today);
+        }
+        for (HeavyHitter hitter : analytics.topTitles(TimeWindow.LAST_7_DAYS, 2)) {
+            if (hitter.getKey().equals("a")) {
+                boolean bounded = hitter.getGuaranteedCount() <= 3 && hitter.getCount() >= 3;
+                System.out.println("Minimal case: a reported as " + hitter.getCount() + " (error "
+                        + hitter.getError() + ")" + (bounded ? "" : " - VIOLATION: true count 3 outside bounds"));
+                return bounded ? 0 : 1;
+            }
+        }
+        System.out.println("Minimal case: VIOLATION: a borrowed 3 of 5 times with 2 counters but not reported");
+        return 1;
+    }
+
+    /**
+     * Replays the drawn checkouts in one ordering into fresh analytics and checks every window.
+     * @return The number of violations
+     */
+    private static int replay(Ordering ordering, int[][] days, LocalDate today, Clock clock, int capacity) {
+        PopularityAnalytics analytics = new PopularityAnalytics(capacity, clock);
+        Map<TimeWindow, ExactCounts> exact = new EnumMap<>(TimeWindow.class);
+        for (TimeWindow window : TimeWindow.values()) {
+            exact.put(window, new ExactCounts());
+        }
+
+        long start = System.nanoTime();
+        for (int dayIndex = 0; dayIndex < DAYS; dayIndex++) {
+            LocalDate day = today.minusDays(DAYS - 1 - dayIndex);
+            long age = DAYS - 1 - dayIndex;
+            for (int titleIndex : order(days[dayIndex], ordering)) {
+                String title = "Title " + titleIndex;
+                String author = "Author " + (titleIndex / TITLES_PER_AUTHOR);
+                analytics.recordCheckout(title, author, day);
+                for (TimeWindow window : TimeWindow.values()) {
+                    if (age < window.getDays()) {
+                        exact.get(window).record(title, author);
+                    }
+                }
+            }
+        }
+        System.out.printf("%s: recorded in %.1f s%n", ordering, (System.nanoTime() - start) / 1e9);
+
+        int violations = 0;
+        for (TimeWindow window : TimeWindow.values()) {
+            ExactCounts counts = exact.get(window);
+            long total = analytics.getCheckoutCount(window);
+            List<String> problems = new ArrayList<>();
+            if (total != counts.total) {
+                problems.add("checkout count " + total + " != exact " + counts.total);
+            }
+            double errorBound = (double) counts.total / capacity;
+            String titleStats = verify("title", analytics.topTitles(window, capacity), counts.titles,
+                    errorBound, problems);
+            String authorStats = verify("author", analytics.topAuthors(window, capacity), counts.authors,
+                    errorBound, problems);
+            System.out.printf("  %-14s N=%8d bound N/capacity=%8.1f | titles: %s | authors: %s%n",
+                    window, counts.total, errorBound, titleStats, authorStats);
+            for (String problem : problems.subList(0, Math.min(problems.size(), MAX_REPORTED_VIOLATIONS))) {
+                System.out.println("    VIOLATION: " + problem);
+            }
+            if (problems.size() > MAX_REPORTED_VIOLATIONS) {
+                System.out.println("    ... and " + (problems.size() - MAX_REPORTED_VIOLATIONS) + " more");
+            }
+            violations += problems.size();
+        }
+        return violations;
+    }
+
+    /**
+     * Orders one day's checkouts. The grouped orderings put all checkouts of a title together,
+     * sorted by how often the title was borrowed that day.
+     */
+    private static int[] order(int[] titles, Ordering ordering) {
+        if (ordering == Ordering.AS_DRAWN) {
+            return titles;
+        }
+        Map<Integer, Integer> frequency = new HashMap<>();
+        for (int title : titles) {
+            frequency.merge(title, 1, Integer::sum);
+        }
+        Comparator<Integer> byFrequency = Comparator.comparing(frequency::get);
+        if (ordering == Ordering.HEAVIEST_FIRST) {
+            byFrequency = byFrequency.reversed();
+        }
+        return Arrays.stream(titles).boxed()
+                .sorted(byFrequency.thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Checks one top list against exact counts, adding any violations to problems.
+     * @return A one-line summary of how tight the estimates were
+     */
+    private static String verify(String kind, List<HeavyHitter> reported, Map<String, Long> exact,
+                                 double errorBound, List<String> problems) {
+        Set<String> reportedKeys = new HashSet<>();
+        long maxError = 0;
+        long maxOverestimate = 0;
+        for (HeavyHitter hitter : reported) {
+            reportedKeys.add(hitter.getKey());
+            long trueCount = exact.getOrDefault(hitter.getKey(), 0L);
+            if (trueCount < hitter.getGuaranteedCount() || trueCount > hitter.getCount()) {
+                problems.add(kind + " " + hitter.getKey() + ": true count " + trueCount + " outside ["
+                        + hitter.getGuaranteedCount() + ", " + hitter.getCount() + "]");
+            }
+            if (hitter.getError() > errorBound) {
+                problems.add(kind + " " + hitter.getKey() + ": error " + hitter.getError() + " exceeds N/capacity");
+            }
+            maxError = Math.max(maxError, hitter.getError());
+            maxOverestimate = Math.max(maxOverestimate, hitter.getCount() - trueCount);
+        }
+        int frequent = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > errorBound) {
+                frequent++;
+                if (!reportedKeys.contains(entry.getKey())) {
+                    problems.add(kind + " " + entry.getKey() + " borrowed " + entry.getValue()
+                            + " times but not reported");
+                }
+            }
+        }
+        return String.format("frequent=%d maxError=%d maxOver=%d", frequent, maxError, maxOverestimate);
+    }
+
+    private static double[] zipfCumulative(int n, double skew) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, double u) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
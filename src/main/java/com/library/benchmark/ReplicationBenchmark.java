@@ -0,0 +1,281 @@
+package com.library.benchmark;
+
+import com.library.event.EventRingBuffer;
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.replication.FollowerStatus;
+import com.library.replication.ReplicationFollower;
+import com.library.replication.ReplicationLeader;
+import com.library.replication.ReplicationStats;
+import com.library.repository.BookRepository;
+import com.library.repository.PatronRepository;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.service.PatronService;
+import com.library.util.LoggerUtil;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures replication throughput and lag between a leader and a follower process on localhost.
+ *
+ * The benchmark is the leader; it starts the follower as a second JVM running this class with
+ * --follower, and the two talk over a loopback socket. The leader's catalog and patrons are
+ * loaded before the follower connects, so the connect exercises the full sync; then writer
+ * threads check books out and in and edit titles for a fixed time while the follower streams.
+ * Afterwards the follower waits until it has applied the leader's last event and reports a
+ * fingerprint of its catalog revisions and open loans, which must equal the leader's; then it
+ * is promoted and takes a write. Exits with status 1 if the follower did not converge.
+ *
+ * Usage: java com.library.benchmark.ReplicationBenchmark [books] [patrons] [threads] [seconds] [writes/s]
+ * A writes/s of 0, the default, runs the writers flat out.
+ */
+public class ReplicationBenchmark {
+    private static final long LAG_SAMPLE_MILLIS = 100;
+    private static final String FOLLOWER_FLAG = "--follower";
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * One library instance: repositories and the services over them.
+     */
+    private static final class Library {
+        final BookService bookService;
+        final PatronService patronService;
+        final LoanService loanService;
+
+        Library() {
+            BookRepository bookRepository = new BookRepository(Runtime.getRuntime().availableProcessors());
+            PatronRepository patronRepository = new PatronRepository();
+            this.bookService = new BookService(bookRepository);
+            this.patronService = new PatronService(patronRepository);
+            this.loanService = new LoanService(bookRepository, patronRepository);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Logger logger = LoggerUtil.getLogger();
+        logger.setLevel(Level.SEVERE);
+        if (args.length > 0 && args[0].equals(FOLLOWER_FLAG)) {
+            System.exit(follow(Integer.parseInt(args[1])));
+        }
+
+        int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int patronCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int rate = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        System.out.println("=== Replication Benchmark ===");
+        System.out.println("Books: " + bookCount + ", patrons: " + patronCount + ", writer threads: " + threads
+                + ", duration: " + seconds + "s" + (rate > 0 ? ", target writes/s: " + rate : ""));
+
+        Library leader = new Library();
+        EventRingBuffer eventBuffer = new EventRingBuffer();
+        leader.bookService.setEventBuffer(eventBuffer);
+        leader.patronService.setEventBuffer(eventBuffer);
+        leader.loanService.setEventBuffer(eventBuffer);
+        for (int i = 0; i < bookCount; i++) {
+            leader.bookService.addBook(new Book("Title " + i, "Author " + (i % 5000), isbnOf(i), 1900 + (i % 120)));
+        }
+        for (int i = 1; i <= patronCount; i++) {
+            leader.patronService.addPatron(new Patron(i, "Patron " + i, "patron" + i + "@example.org",
+                    String.format("555-%07d", i)));
+        }
+
+        Process child = null;
+        try (ReplicationLeader replicationLeader = new ReplicationLeader(eventBuffer, leader.bookService,
+                leader.patronService, leader.loanService)) {
+            replicationLeader.start(0);
+            long syncStart = System.nanoTime();
+            child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"), ReplicationBenchmark.class.getName(),
+                    FOLLOWER_FLAG, String.valueOf(replicationLeader.getPort()))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            BufferedReader fromFollower = new BufferedReader(
+                    new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter toFollower = new PrintWriter(
+                    new OutputStreamWriter(child.getOutputStream(), StandardCharsets.UTF_8), true);
+            expect(fromFollower, "SYNCED");
+            System.out.printf("Full sync, including the follower JVM's start: %.2f s%n",
+                    (System.nanoTime() - syncStart) / 1e9);
+
+            LongAdder writes = new LongAdder();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            long writeIntervalNanos = rate > 0 ? 1_000_000_000L * threads / rate : 0;
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(42 + t);
+                Thread writer = new Thread(() -> write(leader, random, bookCount, patronCount, deadline,
+                        writeIntervalNanos, writes), "replication-writer-" + t);
+                writers.add(writer);
+                writer.start();
+            }
+            long maxLagEvents = 0;
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(LAG_SAMPLE_MILLIS);
+                for (FollowerStatus status : replicationLeader.getFollowers()) {
+                    maxLagEvents = Math.max(maxLagEvents, status.getLagEvents());
+                }
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+
+            long drainStart = System.nanoTime();
+            long lastSequence = eventBuffer.getCursor() - 1;
+            toFollower.println("APPLY " + lastSequence);
+            String[] applied = expect(fromFollower, "APPLIED");
+            double drainMillis = (System.nanoTime() - drainStart) / 1e6;
+            System.out.printf("Leader writes: %d (%.0f/s), events published: %d%n", writes.sum(),
+                    writes.sum() / (double) seconds, lastSequence + 1);
+            System.out.printf("Follower applied: %s events in %s batches, %s events/s%n", applied[1], applied[2],
+                    applied[3]);
+            System.out.printf("Lag: mean %s ms, max %s ms, max sampled %d events; drained in %.1f ms after writes"
+                    + " stopped; full syncs: %s%n", applied[4], applied[5], maxLagEvents, drainMillis, applied[6]);
+
+            String expected = fingerprint(leader);
+            String actual = expect(fromFollower, "STATE")[1];
+            boolean converged = expected.equals(actual);
+            System.out.println("Follower matches leader: " + (converged ? "yes" : "NO"));
+            System.out.println("  leader:   " + expected);
+            System.out.println("  follower: " + actual);
+
+            String[] promoted = expect(fromFollower, "PROMOTED");
+            System.out.println("Promoted follower accepts writes: " + promoted[1] + " (version " + promoted[2] + ")");
+            if (child.waitFor() != 0 || !converged) {
+                System.out.println("FAILED");
+                System.exit(1);
+            }
+        } finally {
+            if (child != null) {
+                child.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Runs the follower process: syncs, then waits for the leader to name its last sequence
+     * on standard input, and reports on standard output.
+     * @return The process exit status
+     */
+    private static int follow(int port) throws IOException, InterruptedException {
+        Library standby = new Library();
+        ReplicationFollower follower = new ReplicationFollower("localhost", port, standby.bookService,
+                standby.patronService, standby.loanService);
+        follower.start();
+        if (!follower.awaitSync(5, TimeUnit.MINUTES)) {
+            System.err.println("Follower did not sync: " + follower.getStats());
+            return 1;
+        }
+        System.out.println("SYNCED");
+
+        BufferedReader fromLeader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String[] request = expect(fromLeader, "APPLY");
+        if (!follower.awaitApplied(Long.parseLong(request[1]), 2, TimeUnit.MINUTES)) {
+            System.err.println("Follower did not catch up: " + follower.getStats());
+            return 1;
+        }
+        ReplicationStats stats = follower.getStats();
+        System.out.printf("APPLIED %d %d %.0f %.2f %d %d%n", stats.getEventsApplied(), stats.getBatchesApplied(),
+                stats.getEventsPerSecond(), stats.getMeanLagMillis(), stats.getMaxLagMillis(), stats.getFullSyncs());
+        System.out.println("STATE " + fingerprint(standby));
+
+        follower.promote();
+        Book book = standby.bookService.getBookByISBN(isbnOf(0));
+        boolean accepted = standby.bookService.updateBook(book.getIsbn(), book.withTitle("Edited after failover"));
+        System.out.println("PROMOTED " + accepted + " " + standby.bookService.getBookByISBN(isbnOf(0)).getVersion());
+        return 0;
+    }
+
+    /**
+     * Reads the next line and checks that it starts with the given word.
+     * @return The line split on spaces
+     */
+    private static String[] expect(BufferedReader in, String word) throws IOException {
+        String line = in.readLine();
+        if (line == null || !line.startsWith(word)) {
+            throw new IOException("Expected " + word + " from the other process, got: " + line);
+        }
+        return line.split(" ");
+    }
+
+    private static void write(Library library, SplittableRandom random, int bookCount, int patronCount,
+                              long deadline, long writeIntervalNanos, LongAdder writes) {
+        ArrayDeque<Object[]> loans = new ArrayDeque<>(); // {isbn, patronId}, oldest first
+        long nextWrite = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            if (writeIntervalNanos > 0) {
+                long wait = nextWrite - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextWrite += writeIntervalNanos;
+            }
+            int choice = random.nextInt(100);
+            if (choice < 10) {
+                Book book = library.bookService.getBookByISBN(isbnOf(random.nextInt(bookCount)));
+                library.bookService.updateBook(book.getIsbn(), book.withTitle("Title " + random.nextInt()));
+            } else if (choice < 55 || loans.isEmpty()) {
+                String isbn = isbnOf(random.nextInt(bookCount));
+                int patronId = 1 + random.nextInt(patronCount);
+                if (library.loanService.checkoutBook(isbn, patronId)) {
+                    loans.addLast(new Object[] {isbn, patronId});
+                }
+            } else {
+                Object[] loan = loans.removeFirst();
+                library.loanService.returnBook((String) loan[0], (Integer) loan[1]);
+            }
+            writes.increment();
+        }
+    }
+
+    /**
+     * Summarizes the catalog revisions and open loans, independent of iteration order.
+     * @return The counts and a hash of each, equal for two libraries that hold the same state
+     */
+    private static String fingerprint(Library library) {
+        long books = 0;
+        long bookHash = 0;
+        for (Book book : library.bookService.getAllBooks()) {
+            books++;
+            bookHash += fnv(book.getIsbn() + '|' + book.getVersion() + '|' + book.getTitle());
+        }
+        long loans = 0;
+        long loanHash = 0;
+        for (Loan loan : library.loanService.getActiveLoans()) {
+            loans++;
+            loanHash += fnv(loan.getBook().getIsbn() + '|' + loan.getLoanId() + '|' + loan.getPatron().getPatronId()
+                    + '|' + loan.getCheckoutDate());
+        }
+        return String.format("books=%d/%016x,open-loans=%d/%016x", books, bookHash, loans, loanHash);
+    }
+
+    private static long fnv(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String isbnOf(int index) {
+        return String.format("978%010d", index);
+    }
+}
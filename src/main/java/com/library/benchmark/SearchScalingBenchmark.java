@@ -0,0 +1,81 @@
+package com.library.benchmark;
+
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import com.library.strategy.SearchByTitle;
+import com.library.strategy.SearchStrategy;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how scatter-gather search throughput scales with the number of cores.
+ * For each parallelism level a fresh sharded repository is built on its own
+ * ForkJoin pool and title searches are run back to back for a fixed duration.
+ *
+ * Usage: java com.library.benchmark.SearchScalingBenchmark [books] [shards] [seconds]
+ */
+public class SearchScalingBenchmark {
+    private static final String[] WORDS = {
+        "river", "shadow", "garden", "empire", "winter", "silent", "golden", "broken",
+        "ocean", "forest", "crown", "letters", "night", "stone", "glass", "summer"
+    };
+
+    public static void main(String[] args) {
+        int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int shardCount = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int maxCores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("=== Search Scaling Benchmark ===");
+        System.out.println("Books: " + bookCount + ", shards: " + shardCount
+                + ", duration per level: " + seconds + "s, cores: " + maxCores);
+
+        SearchStrategy strategy = new SearchByTitle();
+        double baseline = 0;
+        for (int parallelism = 1; parallelism <= maxCores; parallelism *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                BookRepository repository = populate(new BookRepository(shardCount, pool), bookCount);
+                double throughput = measure(repository, strategy, seconds);
+                if (baseline == 0) {
+                    baseline = throughput;
+                }
+                System.out.printf("parallelism=%-3d searches/s=%10.2f speedup=%5.2fx%n",
+                        parallelism, throughput, throughput / baseline);
+            } finally {
+                pool.shutdown();
+            }
+            if (parallelism < maxCores && parallelism * 2 > maxCores) {
+                parallelism = maxCores / 2; // Make sure the full core count is measured too
+            }
+        }
+    }
+
+    private static BookRepository populate(BookRepository repository, int bookCount) {
+        for (int i = 0; i < bookCount; i++) {
+            String title = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            repository.addBook(new Book(title, "Author " + (i % 5000), "isbn-" + i, 1900 + (i % 120)));
+        }
+        return repository;
+    }
+
+    private static double measure(BookRepository repository, SearchStrategy strategy, int seconds) {
+        // Warm up so the JIT has compiled the scan path before timing starts
+        for (int i = 0; i < 3; i++) {
+            repository.search(strategy, WORDS[i]);
+        }
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long start = System.nanoTime();
+        long searches = 0;
+        long matches = 0;
+        while (System.nanoTime() < deadline) {
+            matches += repository.search(strategy, WORDS[(int) (searches % WORDS.length)]).size();
+            searches++;
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        if (matches < 0) {
+            System.out.println(matches); // Keeps the results live for the JIT
+        }
+        return searches / elapsedSeconds;
+    }
+}
@@ -0,0 +1,175 @@
+package com.library.event;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.model.PatronCategory;
+import java.time.LocalDate;
+
+/**
+ * A typed domain event describing a catalog, patron or circulation change.
+ * Instances are pre-allocated and reused by the ring buffer and its processors,
+ * so consumers must copy any values they want to keep after onEvent returns.
+ * Book fields are set for book and loan events, patron fields for patron and loan events,
+ * loan fields for loan events only.
+ *
+ * Events about the same book (or the same patron) are published in the order the changes
+ * were made, and carry stamps to check that order by: the book version for catalog events
+ * and the loan ID for circulation events.
+ */
+public class DomainEvent {
+    private EventType type;
+    private long timestamp;
+    private String isbn;
+    private String title;
+    private String author;
+    private int publicationYear;
+    private long bookVersion;
+    private int patronId;
+    private String patronName;
+    private String email;
+    private String phoneNumber;
+    private PatronCategory patronCategory;
+    private long loanId;
+    private LocalDate loanDate;
+
+    // Getters
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the wall-clock time at which the event was published.
+     * @return Milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getPublicationYear() {
+        return publicationYear;
+    }
+
+    /**
+     * Gets the version of the book revision the event describes.
+     * @return The book version, 0 for events without a book
+     */
+    public long getBookVersion() {
+        return bookVersion;
+    }
+
+    public int getPatronId() {
+        return patronId;
+    }
+
+    public String getPatronName() {
+        return patronName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public PatronCategory getPatronCategory() {
+        return patronCategory;
+    }
+
+    /**
+     * Gets the ID of the loan a checkout opened or a return closed.
+     * @return The loan ID, 0 for events without a loan
+     */
+    public long getLoanId() {
+        return loanId;
+    }
+
+    /**
+     * Gets the checkout day of a BOOK_CHECKED_OUT event or the return day of a BOOK_RETURNED event.
+     * @return The day, or null for events without a loan
+     */
+    public LocalDate getLoanDate() {
+        return loanDate;
+    }
+
+    /**
+     * Overwrites every field of this event. Used by the single writer of a ring slot.
+     */
+    void set(EventType type, long timestamp, String isbn, Book book, Patron patron, long loanId,
+             LocalDate loanDate) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.isbn = isbn;
+        if (book != null) {
+            this.title = book.getTitle();
+            this.author = book.getAuthor();
+            this.publicationYear = book.getPublicationYear();
+            this.bookVersion = book.getVersion();
+        } else {
+            this.title = null;
+            this.author = null;
+            this.publicationYear = 0;
+            this.bookVersion = 0;
+        }
+        if (patron != null) {
+            this.patronId = patron.getPatronId();
+            this.patronName = patron.getName();
+            this.email = patron.getEmail();
+            this.phoneNumber = patron.getPhoneNumber();
+            this.patronCategory = patron.getCategory();
+        } else {
+            this.patronId = 0;
+            this.patronName = null;
+            this.email = null;
+            this.phoneNumber = null;
+            this.patronCategory = null;
+        }
+        this.loanId = loanId;
+        this.loanDate = loanDate;
+    }
+
+    /**
+     * Copies every field from another event.
+     * @param other The event to copy
+     */
+    void copyFrom(DomainEvent other) {
+        this.type = other.type;
+        this.timestamp = other.timestamp;
+        this.isbn = other.isbn;
+        this.title = other.title;
+        this.author = other.author;
+        this.publicationYear = other.publicationYear;
+        this.bookVersion = other.bookVersion;
+        this.patronId = other.patronId;
+        this.patronName = other.patronName;
+        this.email = other.email;
+        this.phoneNumber = other.phoneNumber;
+        this.patronCategory = other.patronCategory;
+        this.loanId = other.loanId;
+        this.loanDate = other.loanDate;
+    }
+
+    @Override
+    public String toString() {
+        return "DomainEvent{" +
+                "type=" + type +
+                ", timestamp=" + timestamp +
+                ", isbn='" + isbn + '\'' +
+                ", patronId=" + patronId +
+                ", loanId=" + loanId +
+                '}';
+    }
+}
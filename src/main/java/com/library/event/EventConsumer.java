@@ -0,0 +1,24 @@
+package com.library.event;
+
+/**
+ * Receives domain events from an EventProcessor.
+ * Callbacks run on the processor's own thread, never on the publishing thread.
+ */
+public interface EventConsumer {
+    /**
+     * Handles one event. The event instance is reused after this call returns.
+     * @param event The event
+     * @param sequence The event's position in the stream
+     * @param endOfBatch true if this is the last event of the current batch
+     */
+    void onEvent(DomainEvent event, long sequence, boolean endOfBatch);
+
+    /**
+     * Called when this consumer fell so far behind that the ring buffer wrapped
+     * and overwrote events it had not read yet. Publishers never wait for consumers,
+     * so a consumer that needs every event must recover from this itself.
+     * @param missedEvents The number of events that were skipped
+     */
+    default void onOverrun(long missedEvents) {
+    }
+}
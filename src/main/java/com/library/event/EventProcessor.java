@@ -0,0 +1,136 @@
+package com.library.event;
+
+import com.library.util.LoggerUtil;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives one EventConsumer from an EventRingBuffer on a dedicated daemon thread.
+ * Events are copied out of the ring in batches of up to batchSize and then delivered,
+ * so a consumer can amortize expensive work (flushes, socket writes) per batch.
+ */
+public class EventProcessor implements Runnable {
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long IDLE_PARK_NANOS = 100_000L;
+
+    private final EventRingBuffer ringBuffer;
+    private final EventConsumer consumer;
+    private final DomainEvent[] batch;
+    private volatile long nextSequence;
+    private volatile boolean running;
+    private Thread thread;
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    EventProcessor(EventRingBuffer ringBuffer, EventConsumer consumer, int batchSize, long startSequence) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.ringBuffer = ringBuffer;
+        this.consumer = consumer;
+        this.batch = new DomainEvent[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = new DomainEvent();
+        }
+        this.nextSequence = startSequence;
+    }
+
+    /**
+     * Starts the processing thread.
+     * @param name The thread name
+     */
+    public synchronized void start(String name) {
+        if (thread != null) {
+            throw new IllegalStateException("Processor already started");
+        }
+        running = true;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the processing thread after its current batch and unregisters it.
+     */
+    public synchronized void stop() {
+        running = false;
+        ringBuffer.removeProcessor(this);
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gets the sequence of the next event this processor will consume.
+     * @return The next sequence
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public void run() {
+        int idleSpins = 0;
+        while (running) {
+            if (processBatch() > 0) {
+                idleSpins = 0;
+            } else if (++idleSpins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Copies and delivers the next batch of available events.
+     * @return The number of events delivered
+     */
+    int processBatch() {
+        long sequence = nextSequence;
+        int count = 0;
+        while (count < batch.length) {
+            EventRingBuffer.ReadResult result = ringBuffer.read(sequence + count, batch[count]);
+            if (result == EventRingBuffer.ReadResult.READ) {
+                count++;
+            } else if (result == EventRingBuffer.ReadResult.OVERRUN) {
+                return recoverFromOverrun(sequence + count, count);
+            } else {
+                break;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            deliver(batch[i], sequence + i, i == count - 1);
+        }
+        nextSequence = sequence + count;
+        return count;
+    }
+
+    private int recoverFromOverrun(long lostSequence, int intactCount) {
+        long sequence = nextSequence;
+        for (int i = 0; i < intactCount; i++) {
+            deliver(batch[i], sequence + i, i == intactCount - 1);
+        }
+        // Resume at the oldest slot that cannot have been overwritten yet
+        long resumeAt = ringBuffer.getCursor() - ringBuffer.getCapacity() + 1;
+        long missed = Math.max(resumeAt - lostSequence, 1);
+        nextSequence = lostSequence + missed;
+        logger.log(Level.WARNING, "Event consumer overrun: skipped " + missed + " events");
+        consumer.onOverrun(missed);
+        return intactCount + 1; // Skipping counts as progress, so don't park
+    }
+
+    private void deliver(DomainEvent event, long sequence, boolean endOfBatch) {
+        try {
+            consumer.onEvent(event, sequence, endOfBatch);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Event consumer failed on " + event, e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.library.event;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-allocated ring buffer carrying domain events from the services to any number of readers.
+ *
+ * Publishing claims a sequence with a single atomic increment and overwrites the slot in place,
+ * so the hot path allocates nothing and never waits. Each slot has exactly one writer per lap;
+ * readers validate what they copied with the slot's sequence stamp (a seqlock), which lets a
+ * slow reader detect that it has been lapped instead of ever holding up a checkout.
+ * The backlog of the slowest processor is exposed so callers can apply backpressure upstream.
+ */
+public class EventRingBuffer {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final long WRITING = -2L;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong cursor; // Next sequence to claim
+    private final List<EventProcessor> processors;
+
+    /**
+     * Holds one event and the sequence it was last published under.
+     */
+    static final class Slot {
+        final DomainEvent event = new DomainEvent();
+        volatile long sequence = -1L;
+    }
+
+    /**
+     * Outcome of a reader's attempt to copy a slot.
+     */
+    enum ReadResult {
+        READ,
+        NOT_PUBLISHED,
+        OVERRUN
+    }
+
+    public EventRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a ring buffer.
+     * @param capacity The number of slots, must be a power of two
+     */
+    public EventRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two greater than 1");
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.cursor = new AtomicLong();
+        this.processors = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Publishes a catalog event (BOOK_ADDED, BOOK_UPDATED).
+     * @param type The event type
+     * @param book The book that changed
+     */
+    public void publishBookEvent(EventType type, Book book) {
+        publish(type, book.getIsbn(), book, null, 0, null);
+    }
+
+    /**
+     * Publishes a BOOK_REMOVED event.
+     * @param isbn The ISBN of the removed book
+     */
+    public void publishBookRemoved(String isbn) {
+        publish(EventType.BOOK_REMOVED, isbn, null, null, 0, null);
+    }
+
+    /**
+     * Publishes a patron event (PATRON_ADDED, PATRON_UPDATED).
+     * @param type The event type
+     * @param patron The patron that changed
+     */
+    public void publishPatronEvent(EventType type, Patron patron) {
+        publish(type, null, null, patron, 0, null);
+    }
+
+    /**
+     * Publishes a circulation event (BOOK_CHECKED_OUT, BOOK_RETURNED).
+     * @param type The event type
+     * @param book The book that was lent or returned
+     * @param patron The patron involved
+     * @param loanId The ID of the loan opened or closed
+     * @param day The checkout day, or the return day for BOOK_RETURNED
+     */
+    public void publishLoanEvent(EventType type, Book book, Patron patron, long loanId, LocalDate day) {
+        publish(type, book.getIsbn(), book, patron, loanId, day);
+    }
+
+    private void publish(EventType type, String isbn, Book book, Patron patron, long loanId, LocalDate day) {
+        long sequence = cursor.getAndIncrement();
+        Slot slot = slots[(int) sequence & mask];
+        slot.sequence = WRITING;
+        VarHandle.storeStoreFence(); // Readers must see WRITING before any field changes
+        slot.event.set(type, System.currentTimeMillis(), isbn, book, patron, loanId, day);
+        slot.sequence = sequence; // Volatile write publishes the fields
+    }
+
+    /**
+     * Copies the event at the given sequence into the target, if it is still intact.
+     */
+    ReadResult read(long sequence, DomainEvent target) {
+        Slot slot = slots[(int) sequence & mask];
+        long before = slot.sequence;
+        if (before == WRITING || before < sequence) {
+            return before == WRITING && cursor.get() - sequence > slots.length
+                    ? ReadResult.OVERRUN
+                    : ReadResult.NOT_PUBLISHED;
+        }
+        if (before > sequence) {
+            return ReadResult.OVERRUN;
+        }
+        target.copyFrom(slot.event);
+        VarHandle.loadLoadFence(); // The copy must complete before re-checking the stamp
+        return slot.sequence == sequence ? ReadResult.READ : ReadResult.OVERRUN;
+    }
+
+    /**
+     * Registers a consumer and creates the processor that will feed it.
+     * The consumer sees events published after this call. Call start() on the result.
+     * @param consumer The consumer
+     * @param batchSize The maximum number of events delivered per batch
+     * @return The processor driving the consumer
+     */
+    public EventProcessor addConsumer(EventConsumer consumer, int batchSize) {
+        EventProcessor processor = new EventProcessor(this, consumer, batchSize, cursor.get());
+        processors.add(processor);
+        return processor;
+    }
+
+    /**
+     * Unregisters a processor so it no longer counts towards the backlog.
+     * @param processor The processor to remove
+     */
+    void removeProcessor(EventProcessor processor) {
+        processors.remove(processor);
+    }
+
+    /**
+     * Gets the sequence the next published event will receive.
+     * @return The publish cursor
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Gets the number of slots in the buffer.
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Gets how many published events the slowest registered processor has yet to consume.
+     * A backlog approaching the capacity means that processor is about to be overrun.
+     * @return The largest backlog across processors, or 0 if none are registered
+     */
+    public long getBacklog() {
+        long published = cursor.get();
+        long backlog = 0;
+        for (EventProcessor processor : processors) {
+            backlog = Math.max(backlog, published - processor.getNextSequence());
+        }
+        return backlog;
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.event;
+
+/**
+ * The kinds of domain events published by the services.
+ */
+public enum EventType {
+    BOOK_ADDED,
+    BOOK_UPDATED,
+    BOOK_REMOVED,
+    PATRON_ADDED,
+    PATRON_UPDATED,
+    BOOK_CHECKED_OUT,
+    BOOK_RETURNED
+}
@@ -0,0 +1,83 @@
+package com.library.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSV with a header row. Values containing separators, quotes or line breaks are quoted;
+ * nulls are written as empty fields.
+ */
+class CsvRecordWriter extends RecordWriter {
+
+    CsvRecordWriter(Writer out, String[] columns) {
+        super(out, columns);
+    }
+
+    @Override
+    void begin() throws IOException {
+        beginRecord();
+        for (String name : columns) {
+            writeString(name);
+        }
+        endRecord();
+    }
+
+    @Override
+    void beginRecord() {
+        column = 0;
+    }
+
+    @Override
+    void writeString(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    @Override
+    void writeNumber(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    void writeBoolean(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+    }
+
+    @Override
+    void endRecord() throws IOException {
+        out.write("\r\n");
+    }
+
+    private void separate() throws IOException {
+        if (column++ > 0) {
+            out.write(',');
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.export;
+
+import java.io.Writer;
+
+/**
+ * File formats the exporters can write.
+ */
+public enum ExportFormat {
+    /** Comma-separated values with a header row, quoted as in RFC 4180. */
+    CSV("csv"),
+    /** One JSON object per line. */
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the file name extension, without the dot.
+     * @return The extension
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    RecordWriter newWriter(Writer out, String[] columns) {
+        return this == CSV ? new CsvRecordWriter(out, columns) : new NdjsonRecordWriter(out, columns);
+    }
+}
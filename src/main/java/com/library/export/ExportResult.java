@@ -0,0 +1,59 @@
+package com.library.export;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of writing one export file.
+ */
+public class ExportResult {
+    /**
+     * The snapshot version reported by exports read from the live repositories.
+     */
+    public static final long NO_SNAPSHOT = -1;
+
+    private final Path path;
+    private final long recordCount;
+    private final long byteCount;
+    private final long snapshotVersion;
+
+    ExportResult(Path path, long recordCount, long byteCount, long snapshotVersion) {
+        this.path = path;
+        this.recordCount = recordCount;
+        this.byteCount = byteCount;
+        this.snapshotVersion = snapshotVersion;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the size of the file as written, after compression.
+     * @return The file size in bytes
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Gets the committed version the export reflects.
+     * @return The snapshot version, or {@link #NO_SNAPSHOT} if read without snapshots
+     */
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{" +
+                "path=" + path +
+                ", recordCount=" + recordCount +
+                ", byteCount=" + byteCount +
+                ", snapshotVersion=" + snapshotVersion +
+                '}';
+    }
+}
@@ -0,0 +1,299 @@
+package com.library.export;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.repository.BookRepository;
+import com.library.repository.PatronRepository;
+import com.library.service.LoanService;
+import com.library.snapshot.LibrarySnapshot;
+import com.library.snapshot.SnapshotManager;
+import com.library.util.LoggerUtil;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the catalog and open loans to CSV or NDJSON files.
+ *
+ * Records are read lazily from a snapshot and written one at a time through a buffered
+ * file channel, optionally gzip-compressed, so memory stays flat however large the catalog.
+ * Because the export reads a snapshot it takes no locks: checkouts and catalog edits carry
+ * on while it runs, and everything written reflects a single committed version.
+ * Files are written under a temporary name and moved into place once complete,
+ * so consumers never pick up a partial export.
+ *
+ * Loan records carry the book's and patron's current title and name, looked up as of the
+ * same snapshot, rather than the ones captured when the book was checked out.
+ * If the library runs without snapshots, the exporter reads the repositories directly;
+ * each record is then current when written, but the files as a whole are not one version.
+ */
+public class LibraryExporter {
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    static final String[] CATALOG_COLUMNS = {"isbn", "title", "author", "publication_year", "available"};
+    static final String[] LOAN_COLUMNS = {"isbn", "title", "patron_id", "patron_name", "checkout_date"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SnapshotManager snapshotManager;
+    private final BookRepository bookRepository;
+    private final PatronRepository patronRepository;
+    private final LoanService loanService;
+
+    /**
+     * Creates an exporter reading from the library's snapshots.
+     * @param snapshotManager The snapshot manager the services commit to
+     */
+    public LibraryExporter(SnapshotManager snapshotManager) {
+        this(snapshotManager, null, null, null);
+    }
+
+    /**
+     * Creates an exporter for a library running without snapshots, reading the repositories directly.
+     * @param bookRepository The catalog
+     * @param patronRepository The patrons
+     * @param loanService The service holding the open loans
+     */
+    public LibraryExporter(BookRepository bookRepository, PatronRepository patronRepository, LoanService loanService) {
+        this(null, bookRepository, patronRepository, loanService);
+    }
+
+    /**
+     * Creates an exporter that reads snapshots when a snapshot manager is given and the repositories otherwise.
+     * @param snapshotManager The snapshot manager the services commit to, or null if snapshots are off
+     * @param bookRepository The catalog, required if snapshotManager is null
+     * @param patronRepository The patrons, required if snapshotManager is null
+     * @param loanService The service holding the open loans, required if snapshotManager is null
+     */
+    public LibraryExporter(SnapshotManager snapshotManager, BookRepository bookRepository,
+                           PatronRepository patronRepository, LoanService loanService) {
+        if (snapshotManager == null && (bookRepository == null || patronRepository == null || loanService == null)) {
+            throw new IllegalArgumentException("Without a snapshot manager the repositories and loan service are required");
+        }
+        this.snapshotManager = snapshotManager;
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+        this.loanService = loanService;
+    }
+
+    /**
+     * Exports the catalog, with availability, and the open loans from one snapshot.
+     * Writes {@code catalog.<ext>} and {@code loans.<ext>}, plus {@code .gz} if compressed.
+     * @param directory The directory to write to; created if missing
+     * @param format The file format
+     * @param compress true to gzip the files
+     * @return The catalog result followed by the loans result
+     * @throws IOException If a file cannot be written
+     */
+    public List<ExportResult> exportAll(Path directory, ExportFormat format, boolean compress) throws IOException {
+        Files.createDirectories(directory);
+        List<ExportResult> results = new ArrayList<>(2);
+        if (snapshotManager == null) {
+            results.add(exportCatalog(directory.resolve(fileName("catalog", format, compress)), format, compress));
+            results.add(exportActiveLoans(directory.resolve(fileName("loans", format, compress)), format, compress));
+            return results;
+        }
+        try (LibrarySnapshot snapshot = snapshotManager.openSnapshot()) {
+            results.add(exportCatalog(snapshot, directory.resolve(fileName("catalog", format, compress)),
+                    format, compress));
+            results.add(exportActiveLoans(snapshot, directory.resolve(fileName("loans", format, compress)),
+                    format, compress));
+        }
+        return results;
+    }
+
+    /**
+     * Exports the catalog as of now.
+     * @param target The file to write
+     * @param format The file format
+     * @param compress true to gzip the file
+     * @return The export result
+     * @throws IOException If the file cannot be written
+     */
+    public ExportResult exportCatalog(Path target, ExportFormat format, boolean compress) throws IOException {
+        if (snapshotManager == null) {
+            return writeCatalog(bookRepository.books().iterator(), loanService::isAvailable,
+                    ExportResult.NO_SNAPSHOT, target, format, compress);
+        }
+        try (LibrarySnapshot snapshot = snapshotManager.openSnapshot()) {
+            return exportCatalog(snapshot, target, format, compress);
+        }
+    }
+
+    /**
+     * Exports the open loans as of now.
+     * @param target The file to write
+     * @param format The file format
+     * @param compress true to gzip the file
+     * @return The export result
+     * @throws IOException If the file cannot be written
+     */
+    public ExportResult exportActiveLoans(Path target, ExportFormat format, boolean compress) throws IOException {
+        if (snapshotManager == null) {
+            return writeLoans(loanService.activeLoans().iterator(), bookRepository::findByISBN,
+                    patronRepository::findById, ExportResult.NO_SNAPSHOT, target, format, compress);
+        }
+        try (LibrarySnapshot snapshot = snapshotManager.openSnapshot()) {
+            return exportActiveLoans(snapshot, target, format, compress);
+        }
+    }
+
+    /**
+     * Exports the catalog from a snapshot the caller manages.
+     * @param snapshot The snapshot to read
+     * @param target The file to write
+     * @param format The file format
+     * @param compress true to gzip the file
+     * @return The export result
+     * @throws IOException If the file cannot be written
+     */
+    public static ExportResult exportCatalog(LibrarySnapshot snapshot, Path target, ExportFormat format,
+                                             boolean compress) throws IOException {
+        return writeCatalog(snapshot.books().iterator(), snapshot::isAvailable, snapshot.getVersion(),
+                target, format, compress);
+    }
+
+    /**
+     * Exports the open loans from a snapshot the caller manages.
+     * @param snapshot The snapshot to read
+     * @param target The file to write
+     * @param format The file format
+     * @param compress true to gzip the file
+     * @return The export result
+     * @throws IOException If the file cannot be written
+     */
+    public static ExportResult exportActiveLoans(LibrarySnapshot snapshot, Path target, ExportFormat format,
+                                                 boolean compress) throws IOException {
+        return writeLoans(snapshot.activeLoans().iterator(), snapshot::findByISBN, snapshot::findPatronById,
+                snapshot.getVersion(), target, format, compress);
+    }
+
+    private static ExportResult writeCatalog(Iterator<Book> books, Predicate<String> isAvailable, long version,
+                                             Path target, ExportFormat format, boolean compress) throws IOException {
+        return write(target, format, compress, CATALOG_COLUMNS, version, records -> {
+            long count = 0;
+            while (books.hasNext()) {
+                Book book = books.next();
+                records.beginRecord();
+                records.writeString(book.getIsbn());
+                records.writeString(book.getTitle());
+                records.writeString(book.getAuthor());
+                records.writeNumber(book.getPublicationYear());
+                records.writeBoolean(isAvailable.test(book.getIsbn()));
+                records.endRecord();
+                count++;
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Writes loans with the current title and patron name; the ones captured at checkout
+     * are used only if the book or patron has since been removed.
+     */
+    private static ExportResult writeLoans(Iterator<Loan> loans, Function<String, Book> currentBook,
+                                           IntFunction<Patron> currentPatron, long version, Path target,
+                                           ExportFormat format, boolean compress) throws IOException {
+        return write(target, format, compress, LOAN_COLUMNS, version, records -> {
+            long count = 0;
+            while (loans.hasNext()) {
+                Loan loan = loans.next();
+                String isbn = loan.getBook().getIsbn();
+                int patronId = loan.getPatron().getPatronId();
+                Book book = currentBook.apply(isbn);
+                Patron patron = currentPatron.apply(patronId);
+                records.beginRecord();
+                records.writeString(isbn);
+                records.writeString(book != null ? book.getTitle() : loan.getBook().getTitle());
+                records.writeNumber(patronId);
+                records.writeString(patron != null ? patron.getName() : loan.getPatron().getName());
+                records.writeString(loan.getCheckoutDate().toString());
+                records.endRecord();
+                count++;
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Body of an export: writes the records and returns how many there were.
+     */
+    private interface RecordSource {
+        long writeTo(RecordWriter records) throws IOException;
+    }
+
+    /**
+     * Gzip stream whose deflater can be released without closing the file underneath.
+     */
+    private static final class GzipStream extends GZIPOutputStream {
+        GzipStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+        }
+
+        void end() {
+            def.end(); // Frees the native zlib memory; safe to call more than once
+        }
+    }
+
+    private static ExportResult write(Path target, ExportFormat format, boolean compress, String[] columns,
+                                      long version, RecordSource source) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        long count;
+        long bytes;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                GzipStream gzip = compress ? new GzipStream(out) : null;
+                try {
+                    Writer writer = new BufferedWriter(
+                            new OutputStreamWriter(gzip != null ? gzip : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+                    RecordWriter records = format.newWriter(writer, columns);
+                    records.begin();
+                    count = source.writeTo(records);
+                    writer.flush();
+                    if (gzip != null) {
+                        gzip.finish();
+                    }
+                } finally {
+                    if (gzip != null) {
+                        gzip.end(); // Also when a write failed, which skips finish()
+                    }
+                }
+                channel.force(true);
+                bytes = channel.size();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            logger.log(Level.WARNING, "Export to " + target + " failed: " + e.getMessage());
+            throw e;
+        }
+        logger.log(Level.INFO, "Exported " + count + " records to " + target
+                + (version == ExportResult.NO_SNAPSHOT ? " (live read)" : " (version " + version + ")"));
+        return new ExportResult(target, count, bytes, version);
+    }
+
+    private static String fileName(String base, ExportFormat format, boolean compress) {
+        return base + "." + format.getExtension() + (compress ? ".gz" : "");
+    }
+}
@@ -0,0 +1,85 @@
+package com.library.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Newline-delimited JSON: one object per record, keyed by column name.
+ */
+class NdjsonRecordWriter extends RecordWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    NdjsonRecordWriter(Writer out, String[] columns) {
+        super(out, columns);
+    }
+
+    @Override
+    void begin() {
+        // No header; every line is self-describing
+    }
+
+    @Override
+    void beginRecord() throws IOException {
+        column = 0;
+        out.write('{');
+    }
+
+    @Override
+    void writeString(String value) throws IOException {
+        name();
+        if (value == null) {
+            out.write("null");
+        } else {
+            quote(value);
+        }
+    }
+
+    @Override
+    void writeNumber(long value) throws IOException {
+        name();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    void writeBoolean(boolean value) throws IOException {
+        name();
+        out.write(value ? "true" : "false");
+    }
+
+    @Override
+    void endRecord() throws IOException {
+        out.write("}\n");
+    }
+
+    private void name() throws IOException {
+        if (column > 0) {
+            out.write(',');
+        }
+        quote(columns[column++]);
+        out.write(':');
+    }
+
+    private void quote(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c == '\n') {
+                out.write("\\n");
+            } else if (c == '\r') {
+                out.write("\\r");
+            } else if (c == '\t') {
+                out.write("\\t");
+            } else if (c < 0x20) {
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes flat records field by field, so rows are never assembled in memory.
+ * Fields must be written in column order, exactly one per column.
+ */
+abstract class RecordWriter {
+    protected final Writer out;
+    protected final String[] columns;
+    protected int column;
+
+    RecordWriter(Writer out, String[] columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    /**
+     * Writes anything that precedes the first record.
+     */
+    abstract void begin() throws IOException;
+
+    abstract void beginRecord() throws IOException;
+
+    abstract void writeString(String value) throws IOException;
+
+    abstract void writeNumber(long value) throws IOException;
+
+    abstract void writeBoolean(boolean value) throws IOException;
+
+    abstract void endRecord() throws IOException;
+}
@@ -0,0 +1,185 @@
+package com.library.history;
+
+import java.util.List;
+
+/**
+ * Interval tree over loan intervals: a treap ordered by start day, each node augmented
+ * with the latest end day in its subtree. Random priorities keep the expected depth
+ * logarithmic, so inserts and removals take O(log n) and a point or range query takes
+ * O(log n + k) for k matches, skipping every subtree that ends before the query.
+ * Results come back in checkout order. Not thread-safe; TemporalIndex guards it.
+ */
+class IntervalTree {
+    private Node root;
+    private int size;
+    private long seed;
+
+    private static final class Node {
+        final LoanInterval interval;
+        final long start;
+        final long end;
+        final int priority;
+        long maxEnd;
+        Node left;
+        Node right;
+
+        Node(LoanInterval interval, int priority) {
+            this.interval = interval;
+            this.start = interval.startDay();
+            this.end = interval.endDay();
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    IntervalTree(long seed) {
+        this.seed = seed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(LoanInterval interval) {
+        root = insert(root, new Node(interval, nextPriority()));
+        size++;
+    }
+
+    /**
+     * Removes an interval, matched by start day and id.
+     * @param interval The interval to remove
+     * @return true if it was present
+     */
+    boolean remove(LoanInterval interval) {
+        int before = size;
+        root = remove(root, interval.startDay(), interval.getId());
+        return size < before;
+    }
+
+    /**
+     * Collects the intervals covering a day.
+     * @param day The epoch day
+     * @param out The list to append to
+     */
+    void stab(long day, List<LoanInterval> out) {
+        overlapping(root, day, day, out);
+    }
+
+    /**
+     * Collects the intervals overlapping a day range.
+     * @param from The first epoch day, inclusive
+     * @param to The last epoch day, inclusive
+     * @param out The list to append to
+     */
+    void overlapping(long from, long to, List<LoanInterval> out) {
+        overlapping(root, from, to, out);
+    }
+
+    private static void overlapping(Node node, long from, long to, List<LoanInterval> out) {
+        while (node != null && node.maxEnd >= from) {
+            overlapping(node.left, from, to, out);
+            if (node.start > to) {
+                return; // Everything to the right starts even later
+            }
+            if (node.end >= from) {
+                out.add(node.interval);
+            }
+            node = node.right;
+        }
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(id, node.interval.getId());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.interval.getId(), node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node remove(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private int nextPriority() {
+        // xorshift; quality needs are modest, and it keeps the tree free of shared Random state
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 32);
+    }
+}
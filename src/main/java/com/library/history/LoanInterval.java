@@ -0,0 +1,116 @@
+package com.library.history;
+
+import java.time.LocalDate;
+
+/**
+ * One loan as a closed date interval: from the checkout day to the return day, both inclusive.
+ * An open loan has no return date and extends indefinitely.
+ * If the return itself was never seen, the interval is closed when the book is next checked
+ * out and flagged as having an inferred return date.
+ */
+public class LoanInterval {
+    private final long id; // Orders intervals that start on the same day
+    private final String isbn;
+    private final String title;
+    private final int patronId;
+    private final String patronName;
+    private final LocalDate checkoutDate;
+    private final LocalDate returnDate;
+    private final boolean returnInferred;
+
+    LoanInterval(long id, String isbn, String title, int patronId, String patronName,
+                 LocalDate checkoutDate, LocalDate returnDate) {
+        this(id, isbn, title, patronId, patronName, checkoutDate, returnDate, false);
+    }
+
+    private LoanInterval(long id, String isbn, String title, int patronId, String patronName,
+                         LocalDate checkoutDate, LocalDate returnDate, boolean returnInferred) {
+        this.id = id;
+        this.isbn = isbn;
+        this.title = title;
+        this.patronId = patronId;
+        this.patronName = patronName;
+        this.checkoutDate = checkoutDate;
+        this.returnDate = returnDate;
+        this.returnInferred = returnInferred;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long startDay() {
+        return checkoutDate.toEpochDay();
+    }
+
+    long endDay() {
+        return returnDate != null ? returnDate.toEpochDay() : Long.MAX_VALUE;
+    }
+
+    LoanInterval closedOn(LocalDate day) {
+        return new LoanInterval(id, isbn, title, patronId, patronName, checkoutDate, day, false);
+    }
+
+    LoanInterval closedByLaterCheckout(LocalDate day) {
+        return new LoanInterval(id, isbn, title, patronId, patronName, checkoutDate, day, true);
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getPatronId() {
+        return patronId;
+    }
+
+    public String getPatronName() {
+        return patronName;
+    }
+
+    public LocalDate getCheckoutDate() {
+        return checkoutDate;
+    }
+
+    /**
+     * Gets the return date.
+     * @return The return date, or null while the loan is open
+     */
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    /**
+     * Checks whether the return date was inferred rather than recorded.
+     * @return true if no return was seen and the loan was closed on the book's next checkout day
+     */
+    public boolean isReturnInferred() {
+        return returnInferred;
+    }
+
+    /**
+     * Checks whether the book was out on a given day.
+     * @param day The day
+     * @return true if the day falls within the loan
+     */
+    public boolean covers(LocalDate day) {
+        long d = day.toEpochDay();
+        return startDay() <= d && d <= endDay();
+    }
+
+    @Override
+    public String toString() {
+        return "LoanInterval{" +
+                "isbn='" + isbn + '\'' +
+                ", title='" + title + '\'' +
+                ", patronId=" + patronId +
+                ", patronName='" + patronName + '\'' +
+                ", checkoutDate=" + checkoutDate +
+                ", returnDate=" + returnDate +
+                (returnInferred ? " (inferred)" : "") +
+                '}';
+    }
+}
@@ -0,0 +1,492 @@
+package com.library.history;
+
+import com.library.event.DomainEvent;
+import com.library.event.EventConsumer;
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.util.LoggerUtil;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Time-travel queries over loans and the catalog.
+ *
+ * Every loan is kept as a date interval in three interval trees: one per ISBN, one per
+ * patron and one across the whole library. "Who had this book on date X", "what did this
+ * patron borrow in March" and "what was on loan on the last day of the fiscal year" are
+ * each a single tree query in O(log n + k), instead of a scan over every patron's history.
+ * Catalog history keeps each ISBN's revisions in a sorted map by time, so the state of a
+ * book at any instant is one floor lookup.
+ *
+ * Subscribe the index to the event ring buffer the services publish to; call
+ * {@link #loadLoans(Collection)} and {@link #loadCatalog(Collection, Instant)} once to
+ * backfill what happened before it started. Memory grows with the number of loans and
+ * catalog edits ever recorded.
+ *
+ * Loans are identified by the loan ID LoanService assigns, so a loan seen both in a backfill
+ * and as an event is indexed once, and a return that arrives before its checkout is held
+ * until the checkout shows up. A book checked out while an earlier loan of it is still open
+ * closes that loan on the new checkout day, flagged as an inferred return. Catalog revisions
+ * keep their book version, and a revision older than one already recorded for the same
+ * stretch of time is ignored. If the index falls behind and the ring buffer overwrites
+ * events it had not read, it reconciles with the patron and catalog sources given at
+ * construction; catalog edits made in the gap are then known only by their end state.
+ */
+public class TemporalIndex implements EventConsumer {
+    private static final long TREE_SEED = 0x2545F4914F6CDD1DL;
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    private final Clock clock;
+    private final Supplier<? extends Collection<Patron>> patronSource;
+    private final Supplier<? extends Collection<Book>> catalogSource;
+    private final Map<String, IntervalTree> byIsbn;
+    private final Map<Integer, IntervalTree> byPatron;
+    private final IntervalTree allLoans;
+    private final Map<Long, LoanInterval> loansById;
+    private final Map<String, LoanInterval> openLoans; // Key: ISBN
+    private final Map<Long, LocalDate> pendingReturns; // Key: loan ID; returns seen before their checkout
+    private final Map<String, NavigableMap<Long, Book>> revisions; // Key: ISBN; null value = removed
+    private final ReentrantReadWriteLock lock;
+    private long nextUnidentifiedLoanId = -1; // For loans recorded without an ID; counts down
+
+    public TemporalIndex() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates the index without sources to recover from missed events; an overrun is only logged.
+     * @param clock The clock whose zone turns event timestamps into dates
+     */
+    public TemporalIndex(Clock clock) {
+        this(clock, null, null);
+    }
+
+    /**
+     * Creates the index.
+     * @param clock The clock whose zone turns event timestamps into dates
+     * @param patronSource Reads all patrons, e.g. {@code patronService::getAllPatrons}, to recover
+     *                     missed loans from their histories; may be null
+     * @param catalogSource Reads the current catalog, e.g. {@code bookService::getAllBooks}, to
+     *                      recover missed catalog changes; may be null
+     */
+    public TemporalIndex(Clock clock, Supplier<? extends Collection<Patron>> patronSource,
+                         Supplier<? extends Collection<Book>> catalogSource) {
+        this.clock = clock;
+        this.patronSource = patronSource;
+        this.catalogSource = catalogSource;
+        this.byIsbn = new HashMap<>();
+        this.byPatron = new HashMap<>();
+        this.allLoans = new IntervalTree(TREE_SEED);
+        this.loansById = new HashMap<>();
+        this.openLoans = new HashMap<>();
+        this.pendingReturns = new HashMap<>();
+        this.revisions = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event, long sequence, boolean endOfBatch) {
+        Instant at = Instant.ofEpochMilli(event.getTimestamp());
+        LocalDate day = event.getLoanDate() != null ? event.getLoanDate() : LocalDate.ofInstant(at, clock.getZone());
+        switch (event.getType()) {
+            case BOOK_ADDED:
+            case BOOK_UPDATED:
+                recordRevision(new Book(event.getTitle(), event.getAuthor(), event.getIsbn(),
+                        event.getPublicationYear(), event.getBookVersion()), at);
+                break;
+            case BOOK_REMOVED:
+                recordRemoval(event.getIsbn(), at);
+                break;
+            case BOOK_CHECKED_OUT:
+                recordCheckout(event.getLoanId(), event.getIsbn(), event.getTitle(), event.getPatronId(),
+                        event.getPatronName(), day);
+                break;
+            case BOOK_RETURNED:
+                recordReturn(event.getLoanId(), event.getIsbn(), event.getPatronId(), day);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onOverrun(long missedEvents) {
+        if (patronSource == null || catalogSource == null) {
+            logger.log(Level.WARNING, "Temporal index missed " + missedEvents
+                    + " events and has no sources to recover from; loan and catalog history may have gaps");
+            return;
+        }
+        logger.log(Level.WARNING, "Temporal index missed " + missedEvents + " events; reconciling with the repositories");
+        loadLoans(patronSource.get());
+        reconcileCatalog(catalogSource.get(), clock.instant());
+    }
+
+    /**
+     * Replays patrons' borrowing histories, returned and open loans alike.
+     * Loans already indexed are not added again, but are closed if the history shows them returned.
+     * @param patrons The patrons whose histories to index
+     */
+    public void loadLoans(Collection<Patron> patrons) {
+        lock.writeLock().lock();
+        try {
+            for (Patron patron : patrons) {
+                for (Loan loan : patron.getBorrowingHistory()) {
+                    addLoan(loan.getLoanId(), loan.getBook().getIsbn(), loan.getBook().getTitle(),
+                            patron.getPatronId(), patron.getName(), loan.getCheckoutDate(), loan.getReturnDate());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records the current catalog as the first known revision of each book.
+     * @param books The books in the catalog
+     * @param asOf When the catalog was in this state
+     */
+    public void loadCatalog(Collection<Book> books, Instant asOf) {
+        for (Book book : books) {
+            recordRevision(book, asOf);
+        }
+    }
+
+    /**
+     * Makes the latest catalog state match a full catalog read: books that changed or are new
+     * get a revision at asOf, and books missing from it are recorded as removed at asOf.
+     * @param books The complete current catalog
+     * @param asOf When the catalog was in this state
+     */
+    public void reconcileCatalog(Collection<Book> books, Instant asOf) {
+        lock.writeLock().lock();
+        try {
+            Set<String> present = new HashSet<>();
+            for (Book book : books) {
+                present.add(book.getIsbn());
+                Book latest = latestRevision(book.getIsbn());
+                if (latest == null || latest.getVersion() != book.getVersion()) {
+                    // The catalog is authoritative here, even over a newer-looking version of an earlier incarnation
+                    revisions.computeIfAbsent(book.getIsbn(), key -> new TreeMap<>()).put(asOf.toEpochMilli(), book);
+                }
+            }
+            for (String isbn : new ArrayList<>(revisions.keySet())) {
+                if (!present.contains(isbn) && latestRevision(isbn) != null) {
+                    revisions.get(isbn).put(asOf.toEpochMilli(), null);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens a loan interval, or records a closed one if its return was already seen.
+     * @param loanId The loan ID assigned at checkout, or 0 if unknown
+     * @param isbn The ISBN of the borrowed book
+     * @param title The title at checkout time
+     * @param patronId The borrowing patron
+     * @param patronName The patron's name at checkout time
+     * @param day The checkout day
+     */
+    public void recordCheckout(long loanId, String isbn, String title, int patronId, String patronName, LocalDate day) {
+        lock.writeLock().lock();
+        try {
+            addLoan(loanId, isbn, title, patronId, patronName, day, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes a loan interval. A return for a loan not indexed yet is kept until its checkout arrives.
+     * @param loanId The ID of the returned loan, or 0 to close whatever loan of the book the patron has open
+     * @param isbn The ISBN of the returned book
+     * @param patronId The returning patron
+     * @param day The return day
+     */
+    public void recordReturn(long loanId, String isbn, int patronId, LocalDate day) {
+        lock.writeLock().lock();
+        try {
+            if (loanId == 0) {
+                LoanInterval open = openLoans.get(isbn);
+                if (open != null && open.getPatronId() == patronId) {
+                    close(open, day);
+                }
+                return;
+            }
+            LoanInterval interval = loansById.get(loanId);
+            if (interval == null) {
+                pendingReturns.put(loanId, day);
+            } else if (interval.getReturnDate() == null || interval.isReturnInferred()) {
+                close(interval, day);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records a new revision of a book's catalog entry.
+     * Ignored if a revision with the same or a higher version is already in effect at that instant;
+     * later revisions with a lower version, before the next removal, are dropped as superseded.
+     * @param book The book as it is from now on
+     * @param at When the revision took effect
+     */
+    public void recordRevision(Book book, Instant at) {
+        lock.writeLock().lock();
+        try {
+            putRevision(book.getIsbn(), at.toEpochMilli(), book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that a book left the catalog.
+     * @param isbn The ISBN of the removed book
+     * @param at When it was removed
+     */
+    public void recordRemoval(String isbn, Instant at) {
+        lock.writeLock().lock();
+        try {
+            revisions.computeIfAbsent(isbn, key -> new TreeMap<>()).put(at.toEpochMilli(), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds who had a book on a given day.
+     * @param isbn The ISBN of the book
+     * @param day The day
+     * @return Loans of the book covering that day; more than one if it changed hands that day
+     */
+    public List<LoanInterval> whoHad(String isbn, LocalDate day) {
+        return loansOfBook(isbn, day, day);
+    }
+
+    /**
+     * Finds the loans of a book overlapping a date range.
+     * @param isbn The ISBN of the book
+     * @param from The first day, inclusive
+     * @param to The last day, inclusive
+     * @return Matching loans in checkout order
+     */
+    public List<LoanInterval> loansOfBook(String isbn, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return query(byIsbn.get(isbn), from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the loans of a patron overlapping a date range.
+     * @param patronId The ID of the patron
+     * @param from The first day, inclusive
+     * @param to The last day, inclusive
+     * @return Matching loans in checkout order
+     */
+    public List<LoanInterval> loansOfPatron(int patronId, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return query(byPatron.get(patronId), from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds everything that was on loan on a given day.
+     * @param day The day
+     * @return Loans covering that day in checkout order
+     */
+    public List<LoanInterval> onLoanAt(LocalDate day) {
+        return loansBetween(day, day);
+    }
+
+    /**
+     * Finds every loan overlapping a date range.
+     * @param from The first day, inclusive
+     * @param to The last day, inclusive
+     * @return Matching loans in checkout order
+     */
+    public List<LoanInterval> loansBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return query(allLoans, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a book's catalog entry as it was at an instant.
+     * @param isbn The ISBN of the book
+     * @param at The instant
+     * @return The revision in effect, or null if the book was not in the catalog then
+     */
+    public Book bookAt(String isbn, Instant at) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, Book> history = revisions.get(isbn);
+            if (history == null) {
+                return null;
+            }
+            Map.Entry<Long, Book> entry = history.floorEntry(at.toEpochMilli());
+            return entry != null ? entry.getValue() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the whole catalog as it was at an instant.
+     * Costs one floor lookup per ISBN ever seen.
+     * @param at The instant
+     * @return The revisions in effect then
+     */
+    public List<Book> catalogAt(Instant at) {
+        lock.readLock().lock();
+        try {
+            List<Book> books = new ArrayList<>();
+            long millis = at.toEpochMilli();
+            for (NavigableMap<Long, Book> history : revisions.values()) {
+                Map.Entry<Long, Book> entry = history.floorEntry(millis);
+                if (entry != null && entry.getValue() != null) {
+                    books.add(entry.getValue());
+                }
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of loan intervals indexed, open and closed.
+     * @return The loan count
+     */
+    public int getLoanCount() {
+        lock.readLock().lock();
+        try {
+            return allLoans.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<LoanInterval> query(IntervalTree tree, LocalDate from, LocalDate to) {
+        List<LoanInterval> results = new ArrayList<>();
+        if (tree != null) {
+            tree.overlapping(from.toEpochDay(), to.toEpochDay(), results);
+        }
+        return results;
+    }
+
+    private void addLoan(long loanId, String isbn, String title, int patronId, String patronName,
+                         LocalDate checkout, LocalDate returned) {
+        LoanInterval known = loanId != 0 ? loansById.get(loanId) : null;
+        if (known != null) {
+            if (returned != null && (known.getReturnDate() == null || known.isReturnInferred())) {
+                close(known, returned);
+            }
+            return;
+        }
+        long id = loanId != 0 ? loanId : nextUnidentifiedLoanId--;
+        LocalDate pendingReturn = pendingReturns.remove(id);
+        LoanInterval interval = new LoanInterval(id, isbn, title, patronId, patronName, checkout,
+                returned != null ? returned : pendingReturn);
+        if (interval.getReturnDate() == null) {
+            LoanInterval open = openLoans.get(isbn);
+            if (open != null && isLater(open, interval)) {
+                // A newer loan of the book is already open, so this one must have ended when it began
+                interval = interval.closedByLaterCheckout(open.getCheckoutDate());
+            } else {
+                if (open != null) {
+                    // The earlier loan's return was missed; close it as of this checkout
+                    replace(open, open.closedByLaterCheckout(checkout));
+                }
+                openLoans.put(isbn, interval);
+            }
+        }
+        insert(interval);
+    }
+
+    /**
+     * Checks whether loan a began after loan b. Loan IDs increase with each checkout,
+     * so they order loans that began on the same day.
+     */
+    private static boolean isLater(LoanInterval a, LoanInterval b) {
+        int byDay = a.getCheckoutDate().compareTo(b.getCheckoutDate());
+        if (byDay != 0) {
+            return byDay > 0;
+        }
+        return a.getId() > 0 && b.getId() > 0 && a.getId() > b.getId();
+    }
+
+    private void close(LoanInterval interval, LocalDate day) {
+        if (openLoans.get(interval.getIsbn()) == interval) {
+            openLoans.remove(interval.getIsbn());
+        }
+        replace(interval, interval.closedOn(day));
+    }
+
+    private void replace(LoanInterval old, LoanInterval updated) {
+        // The end day is part of every node's augmentation, so reinsert rather than edit in place
+        remove(old);
+        insert(updated);
+    }
+
+    private Book latestRevision(String isbn) {
+        NavigableMap<Long, Book> history = revisions.get(isbn);
+        return history == null || history.isEmpty() ? null : history.lastEntry().getValue();
+    }
+
+    private void putRevision(String isbn, long millis, Book book) {
+        NavigableMap<Long, Book> history = revisions.computeIfAbsent(isbn, key -> new TreeMap<>());
+        Map.Entry<Long, Book> before = history.floorEntry(millis);
+        if (before != null && before.getValue() != null && before.getValue().getVersion() >= book.getVersion()) {
+            return;
+        }
+        history.put(millis, book);
+        Iterator<Book> after = history.tailMap(millis, false).values().iterator();
+        while (after.hasNext()) {
+            Book next = after.next();
+            if (next == null || next.getVersion() >= book.getVersion()) {
+                break;
+            }
+            after.remove();
+        }
+    }
+
+    private void insert(LoanInterval interval) {
+        loansById.put(interval.getId(), interval);
+        allLoans.insert(interval);
+        byIsbn.computeIfAbsent(interval.getIsbn(), isbn -> new IntervalTree(TREE_SEED)).insert(interval);
+        byPatron.computeIfAbsent(interval.getPatronId(), id -> new IntervalTree(TREE_SEED)).insert(interval);
+    }
+
+    private void remove(LoanInterval interval) {
+        allLoans.remove(interval);
+        byIsbn.get(interval.getIsbn()).remove(interval);
+        byPatron.get(interval.getPatronId()).remove(interval);
+    }
+}
@@ -2,63 +2,79 @@ package com.library.model;
 
 /**
  * Represents a Book in the library system.
- * Demonstrates encapsulation with private fields and public getters/setters.
+ * Books are immutable catalog records: edits produce a new instance via the
+ * {@code with...} methods, and the repository stamps each stored revision with
+ * a version number used for optimistic updates. Whether a book is lent out is
+ * loan state, tracked by LoanService, not part of the catalog record.
  */
-public class Book {
-    private String title;
-    private String author;
-    private String isbn;
-    private int publicationYear;
-    private boolean isAvailable;
+public final class Book {
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final int publicationYear;
+    private final long version;
 
     // Constructor
     public Book(String title, String author, String isbn, int publicationYear) {
+        this(title, author, isbn, publicationYear, 0);
+    }
+
+    /**
+     * Creates a specific revision of a book.
+     * @param title The title
+     * @param author The author
+     * @param isbn The ISBN
+     * @param publicationYear The publication year
+     * @param version The revision number; a new book starts at 0
+     */
+    public Book(String title, String author, String isbn, int publicationYear, long version) {
         this.title = title;
         this.author = author;
         this.isbn = isbn;
         this.publicationYear = publicationYear;
-        this.isAvailable = true; // New books are available by default
+        this.version = version;
     }
 
-    // Getters and Setters
+    // Getters
     public String getTitle() {
         return title;
     }
 
-    public void setTitle(String title) {
-        this.title = title;
-    }
-
     public String getAuthor() {
         return author;
     }
 
-    public void setAuthor(String author) {
-        this.author = author;
-    }
-
     public String getIsbn() {
         return isbn;
     }
 
-    public void setIsbn(String isbn) {
-        this.isbn = isbn;
-    }
-
     public int getPublicationYear() {
         return publicationYear;
     }
 
-    public void setPublicationYear(int publicationYear) {
-        this.publicationYear = publicationYear;
+    /**
+     * Gets the revision this instance was read at.
+     * @return The version, starting at 0 and incremented by each update
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    // Copy-on-write modifiers; the result keeps this revision's version as its update base
+    public Book withTitle(String title) {
+        return new Book(title, author, isbn, publicationYear, version);
+    }
+
+    public Book withAuthor(String author) {
+        return new Book(title, author, isbn, publicationYear, version);
     }
 
-    public boolean isAvailable() {
-        return isAvailable;
+    public Book withPublicationYear(int publicationYear) {
+        return new Book(title, author, isbn, publicationYear, version);
     }
 
-    public void setAvailable(boolean available) {
-        isAvailable = available;
+    public Book withVersion(long version) {
+        return new Book(title, author, isbn, publicationYear, version);
     }
 
     @Override
@@ -68,7 +84,7 @@ public class Book {
                 ", author='" + author + '\'' +
                 ", isbn='" + isbn + '\'' +
                 ", publicationYear=" + publicationYear +
-                ", isAvailable=" + isAvailable +
+                ", version=" + version +
                 '}';
     }
 }
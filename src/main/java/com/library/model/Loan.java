@@ -6,6 +6,7 @@ import java.time.LocalDate;
  * Represents a lending transaction between a Patron and a Book.
  */
 public class Loan {
+    private final long loanId;
     private Book book;
     private Patron patron;
     private LocalDate checkoutDate;
@@ -13,6 +14,18 @@ public class Loan {
 
     // Constructor for checkout
     public Loan(Book book, Patron patron, LocalDate checkoutDate) {
+        this(0, book, patron, checkoutDate);
+    }
+
+    /**
+     * Creates a loan with the ID LoanService assigned to it.
+     * @param loanId The loan's ID, unique and increasing per library; 0 if not assigned
+     * @param book The lent book
+     * @param patron The borrowing patron
+     * @param checkoutDate The day the loan started
+     */
+    public Loan(long loanId, Book book, Patron patron, LocalDate checkoutDate) {
+        this.loanId = loanId;
         this.book = book;
         this.patron = patron;
         this.checkoutDate = checkoutDate;
@@ -20,6 +33,15 @@ public class Loan {
     }
 
     // Getters and Setters
+    /**
+     * Gets the loan's ID. IDs increase with every checkout, so of two loans of the same
+     * book the one with the higher ID is the later one.
+     * @return The ID, or 0 for a loan not made through LoanService
+     */
+    public long getLoanId() {
+        return loanId;
+    }
+
     public Book getBook() {
         return book;
     }
@@ -59,7 +81,8 @@ public class Loan {
     @Override
     public String toString() {
         return "Loan{" +
-                "book=" + book.getTitle() +
+                "loanId=" + loanId +
+                ", book=" + book.getTitle() +
                 ", patron=" + patron.getName() +
                 ", checkoutDate=" + checkoutDate +
                 ", returnDate=" + (returnDate != null ? returnDate : "Not returned") +
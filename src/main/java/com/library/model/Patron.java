@@ -1,6 +1,6 @@
 package com.library.model;
 
-import java.util.ArrayList;
+import com.library.util.AppendOnlyList;
 import java.util.List;
 
 /**
@@ -12,15 +12,21 @@ public class Patron {
     private String name;
     private String email;
     private String phoneNumber;
+    private PatronCategory category;
     private List<Loan> borrowingHistory;
 
     // Constructor
     public Patron(int patronId, String name, String email, String phoneNumber) {
+        this(patronId, name, email, phoneNumber, PatronCategory.GENERAL);
+    }
+
+    public Patron(int patronId, String name, String email, String phoneNumber, PatronCategory category) {
         this.patronId = patronId;
         this.name = name;
         this.email = email;
         this.phoneNumber = phoneNumber;
-        this.borrowingHistory = new ArrayList<>();
+        this.category = category;
+        this.borrowingHistory = new AppendOnlyList<>(); // Safe to read while desks add loans
     }
 
     // Getters and Setters
@@ -56,6 +62,14 @@ public class Patron {
         this.phoneNumber = phoneNumber;
     }
 
+    public PatronCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(PatronCategory category) {
+        this.category = category;
+    }
+
     public List<Loan> getBorrowingHistory() {
         return borrowingHistory;
     }
@@ -71,6 +85,7 @@ public class Patron {
                 ", name='" + name + '\'' +
                 ", email='" + email + '\'' +
                 ", phoneNumber='" + phoneNumber + '\'' +
+                ", category=" + category +
                 ", totalLoans=" + borrowingHistory.size() +
                 '}';
     }
@@ -0,0 +1,11 @@
+package com.library.model;
+
+/**
+ * Membership categories that determine a patron's borrowing limits.
+ */
+public enum PatronCategory {
+    GENERAL,
+    STUDENT,
+    STAFF,
+    FACULTY
+}
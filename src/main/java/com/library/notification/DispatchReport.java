@@ -0,0 +1,104 @@
+package com.library.notification;
+
+import java.time.LocalDate;
+
+/**
+ * Statistics of one dispatch run.
+ */
+public class DispatchReport {
+    private final LocalDate runDate;
+    private final int notifications;
+    private final int items;
+    private final long sent;
+    private final long failed;
+    private final long undeliverable;
+    private final long attempts;
+    private final long elapsedNanos;
+
+    DispatchReport(LocalDate runDate, int notifications, int items, long sent, long failed, long undeliverable,
+                   long attempts, long elapsedNanos) {
+        this.runDate = runDate;
+        this.notifications = notifications;
+        this.items = items;
+        this.sent = sent;
+        this.failed = failed;
+        this.undeliverable = undeliverable;
+        this.attempts = attempts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public LocalDate getRunDate() {
+        return runDate;
+    }
+
+    /**
+     * Gets how many patrons were due a notification.
+     * @return The notification count
+     */
+    public int getNotificationCount() {
+        return notifications;
+    }
+
+    /**
+     * Gets how many loans the notifications covered in total.
+     * @return The item count
+     */
+    public int getItemCount() {
+        return items;
+    }
+
+    public long getSentCount() {
+        return sent;
+    }
+
+    /**
+     * Gets how many notifications still failed after the last retry.
+     * @return The failure count
+     */
+    public long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Gets how many patrons had neither an email address nor a phone number.
+     * @return The undeliverable count
+     */
+    public long getUndeliverableCount() {
+        return undeliverable;
+    }
+
+    /**
+     * Gets how many send calls were made, first attempts and retries together.
+     * @return The attempt count
+     */
+    public long getAttemptCount() {
+        return attempts;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the delivery rate over the whole run.
+     * @return Notifications sent per second
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? sent * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchReport{" +
+                "runDate=" + runDate +
+                ", notifications=" + notifications +
+                ", items=" + items +
+                ", sent=" + sent +
+                ", failed=" + failed +
+                ", undeliverable=" + undeliverable +
+                ", attempts=" + attempts +
+                ", elapsedMillis=" + elapsedNanos / 1_000_000 +
+                ", throughput=" + String.format("%.1f/s", getThroughput()) +
+                '}';
+    }
+}
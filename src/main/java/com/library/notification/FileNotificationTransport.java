@@ -0,0 +1,50 @@
+package com.library.notification;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stub transport that appends each notification to a local file instead of sending it.
+ * One line per notification: patron ID, address, subject, then the ISBNs it covers.
+ * Useful for tests and dry runs; close it to flush the file.
+ */
+public class FileNotificationTransport implements NotificationTransport, AutoCloseable {
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the file for appending, creating it if needed.
+     * @param path The output file
+     * @throws IOException If the file cannot be opened
+     */
+    public FileNotificationTransport(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void send(Notification notification) throws IOException {
+        StringBuilder line = new StringBuilder(128)
+                .append(notification.getPatronId()).append('\t')
+                .append(notification.getEmail() != null ? notification.getEmail() : notification.getPhoneNumber())
+                .append('\t')
+                .append(notification.getSubject());
+        for (ReminderItem item : notification.getItems()) {
+            line.append('\t').append(item.getIsbn());
+        }
+        synchronized (writer) {
+            writer.write(line.toString());
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
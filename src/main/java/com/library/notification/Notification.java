@@ -0,0 +1,104 @@
+package com.library.notification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One message to one patron, covering every item they need reminding about.
+ */
+public class Notification {
+    private final int patronId;
+    private final String patronName;
+    private final String email;
+    private final String phoneNumber;
+    private final List<ReminderItem> items;
+
+    Notification(int patronId, String patronName, String email, String phoneNumber) {
+        this.patronId = patronId;
+        this.patronName = patronName;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.items = new ArrayList<>(2);
+    }
+
+    void addItem(ReminderItem item) {
+        items.add(item);
+    }
+
+    void sortItems(Comparator<ReminderItem> order) {
+        items.sort(order);
+    }
+
+    public int getPatronId() {
+        return patronId;
+    }
+
+    public String getPatronName() {
+        return patronName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public List<ReminderItem> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Gets the most urgent reason among the items: OVERDUE if any item is overdue.
+     * @return The notification type
+     */
+    public ReminderType getType() {
+        for (ReminderItem item : items) {
+            if (item.getType() == ReminderType.OVERDUE) {
+                return ReminderType.OVERDUE;
+            }
+        }
+        return ReminderType.DUE_SOON;
+    }
+
+    /**
+     * Gets a one-line subject suitable for email or SMS.
+     * @return The subject
+     */
+    public String getSubject() {
+        String what = items.size() == 1 ? "1 item" : items.size() + " items";
+        return getType() == ReminderType.OVERDUE
+                ? "Overdue: " + what + " on your library account"
+                : "Due soon: " + what + " on your library account";
+    }
+
+    /**
+     * Gets the message text, one line per item.
+     * @return The body
+     */
+    public String getBody() {
+        StringBuilder body = new StringBuilder("Dear ").append(patronName).append(",\n");
+        for (ReminderItem item : items) {
+            body.append(item.getType() == ReminderType.OVERDUE ? "  OVERDUE  " : "  due      ")
+                    .append(item.getTitle())
+                    .append(" (ISBN ").append(item.getIsbn()).append(") ")
+                    .append(item.getType() == ReminderType.OVERDUE ? "was due " : "is due ")
+                    .append(item.getDueDate())
+                    .append('\n');
+        }
+        return body.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{" +
+                "patronId=" + patronId +
+                ", patronName='" + patronName + '\'' +
+                ", type=" + getType() +
+                ", items=" + items +
+                '}';
+    }
+}
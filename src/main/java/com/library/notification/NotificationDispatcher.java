@@ -0,0 +1,248 @@
+package com.library.notification;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.service.BorrowingPolicy;
+import com.library.util.LoggerUtil;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Sends the daily due-soon and overdue reminders.
+ *
+ * A run walks the open loans once, keeps the ones due within {@code dueSoonDays} or already
+ * overdue, and coalesces them into one notification per patron, addressed with the patron's
+ * current contact details and listing each book's current title, rather than the ones
+ * captured at checkout. Notifications are sent
+ * through the transport with at most {@code maxConcurrency} sends in flight; a failed send
+ * is retried with exponential backoff and jitter up to {@code maxAttempts} times. Sends run
+ * on virtual threads when the runtime has them (Java 21+), so a slow transport costs no
+ * platform threads while waiting; on older runtimes a fixed pool of {@code maxConcurrency}
+ * threads is used instead. Each run returns a DispatchReport with its throughput.
+ */
+public class NotificationDispatcher {
+    public static final int DEFAULT_MAX_CONCURRENCY = 256;
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(200);
+    public static final int DEFAULT_DUE_SOON_DAYS = 2;
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    private final NotificationTransport transport;
+    private final BorrowingPolicy borrowingPolicy;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final int dueSoonDays;
+
+    public NotificationDispatcher(NotificationTransport transport, BorrowingPolicy borrowingPolicy) {
+        this(transport, borrowingPolicy, DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF,
+                DEFAULT_DUE_SOON_DAYS);
+    }
+
+    /**
+     * Creates a dispatcher.
+     * @param transport Where notifications are sent
+     * @param borrowingPolicy The policy that decides due dates
+     * @param maxConcurrency The most sends in flight at once
+     * @param maxAttempts Sends per notification before giving up, at least 1
+     * @param initialBackoff Wait before the first retry; doubles on each further retry
+     * @param dueSoonDays How many days ahead a due date triggers a due-soon reminder
+     */
+    public NotificationDispatcher(NotificationTransport transport, BorrowingPolicy borrowingPolicy,
+                                  int maxConcurrency, int maxAttempts, Duration initialBackoff, int dueSoonDays) {
+        if (maxConcurrency < 1 || maxAttempts < 1 || dueSoonDays < 0) {
+            throw new IllegalArgumentException("Invalid dispatcher settings");
+        }
+        this.transport = transport;
+        this.borrowingPolicy = borrowingPolicy;
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.dueSoonDays = dueSoonDays;
+    }
+
+    /**
+     * Works out who needs reminding, one notification per patron.
+     * @param openLoans The open loans, e.g. {@code loanService.activeLoans()} or {@code snapshot.activeLoans()}
+     * @param books Looks up a book's current revision by ISBN, e.g. {@code bookService::getBookByISBN}
+     *              or {@code snapshot::findByISBN}; the book as lent is used if it returns null
+     * @param patrons Looks up a patron's current record by ID, e.g. {@code patronService::getPatronById}
+     *                or {@code snapshot::findPatronById}; the patron a loan was made to is used if it returns null
+     * @param today The day of the run
+     * @return Notifications with their items ordered by due date
+     */
+    public List<Notification> planReminders(Stream<Loan> openLoans, Function<String, Book> books,
+                                            IntFunction<Patron> patrons, LocalDate today) {
+        LocalDate dueSoonLimit = today.plusDays(dueSoonDays);
+        Map<Integer, Notification> byPatron = new HashMap<>();
+        Iterator<Loan> loans = openLoans.iterator();
+        while (loans.hasNext()) {
+            Loan loan = loans.next();
+            if (loan.isReturned()) {
+                continue;
+            }
+            LocalDate dueDate = borrowingPolicy.getDueDate(loan);
+            ReminderType type;
+            if (dueDate.isBefore(today)) {
+                type = ReminderType.OVERDUE;
+            } else if (!dueDate.isAfter(dueSoonLimit)) {
+                type = ReminderType.DUE_SOON;
+            } else {
+                continue;
+            }
+            String isbn = loan.getBook().getIsbn();
+            Book book = books.apply(isbn);
+            String title = book != null ? book.getTitle() : loan.getBook().getTitle();
+            byPatron.computeIfAbsent(loan.getPatron().getPatronId(), id -> {
+                Patron current = patrons.apply(id);
+                Patron patron = current != null ? current : loan.getPatron();
+                return new Notification(id, patron.getName(), patron.getEmail(), patron.getPhoneNumber());
+            })
+                    .addItem(new ReminderItem(isbn, title, dueDate, type));
+        }
+        List<Notification> notifications = new ArrayList<>(byPatron.values());
+        for (Notification notification : notifications) {
+            notification.sortItems(Comparator.comparing(ReminderItem::getDueDate));
+        }
+        return notifications;
+    }
+
+    /**
+     * Plans and sends one run of reminders, returning when every send has finished.
+     * @param openLoans The open loans
+     * @param books Looks up a book's current revision by ISBN
+     * @param patrons Looks up a patron's current record by ID
+     * @param today The day of the run
+     * @return Statistics of the run
+     * @throws InterruptedException If interrupted while waiting for sends
+     */
+    public DispatchReport dispatch(Stream<Loan> openLoans, Function<String, Book> books, IntFunction<Patron> patrons,
+                                   LocalDate today) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Notification> notifications = planReminders(openLoans, books, patrons, today);
+        int items = 0;
+        LongAdder sent = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder attempts = new LongAdder();
+        long undeliverable = 0;
+
+        Semaphore inFlight = new Semaphore(maxConcurrency);
+        ExecutorService executor = newExecutor(maxConcurrency);
+        try {
+            for (Notification notification : notifications) {
+                items += notification.getItems().size();
+                if (isBlank(notification.getEmail()) && isBlank(notification.getPhoneNumber())) {
+                    undeliverable++;
+                    continue;
+                }
+                inFlight.acquire(); // Backpressure: never more than maxConcurrency sends queued or running
+                executor.execute(() -> {
+                    try {
+                        deliver(notification, sent, failed, attempts);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(maxConcurrency); // Wait for the last sends
+            inFlight.release(maxConcurrency);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        DispatchReport report = new DispatchReport(today, notifications.size(), items, sent.sum(), failed.sum(),
+                undeliverable, attempts.sum(), System.nanoTime() - start);
+        logger.log(Level.INFO, "Reminder run complete: " + report);
+        return report;
+    }
+
+    private void deliver(Notification notification, LongAdder sent, LongAdder failed, LongAdder attempts) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                transport.send(notification);
+                sent.increment();
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    failed.increment();
+                    logger.log(Level.WARNING, "Reminder to patron " + notification.getPatronId()
+                            + " failed after " + attempt + " attempts: " + e.getMessage());
+                    return;
+                }
+            }
+            try {
+                // Equal jitter: wait between half and all of the backoff, so retries spread out
+                // without any of them coming back immediately
+                Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.increment();
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * Checks whether sends run on virtual threads in this runtime.
+     * @return true on Java 21 and later
+     */
+    public static boolean isUsingVirtualThreads() {
+        return virtualThreadFactory() != null;
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        Method factory = virtualThreadFactory();
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.log(Level.WARNING, "Virtual threads unavailable, using a thread pool: " + e.getMessage());
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "notification-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method virtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
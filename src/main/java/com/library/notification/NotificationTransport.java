@@ -0,0 +1,16 @@
+package com.library.notification;
+
+import java.io.IOException;
+
+/**
+ * Delivers notifications: email, SMS, a file, or anything else.
+ * Implementations must be thread-safe; the dispatcher calls send from many threads at once.
+ */
+public interface NotificationTransport {
+    /**
+     * Sends one notification.
+     * @param notification The notification
+     * @throws IOException If delivery failed and may succeed on retry
+     */
+    void send(Notification notification) throws IOException;
+}
@@ -0,0 +1,46 @@
+package com.library.notification;
+
+import java.time.LocalDate;
+
+/**
+ * One borrowed item mentioned in a reminder.
+ */
+public class ReminderItem {
+    private final String isbn;
+    private final String title;
+    private final LocalDate dueDate;
+    private final ReminderType type;
+
+    public ReminderItem(String isbn, String title, LocalDate dueDate, ReminderType type) {
+        this.isbn = isbn;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.type = type;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public ReminderType getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderItem{" +
+                "isbn='" + isbn + '\'' +
+                ", title='" + title + '\'' +
+                ", dueDate=" + dueDate +
+                ", type=" + type +
+                '}';
+    }
+}
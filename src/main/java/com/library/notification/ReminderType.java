@@ -0,0 +1,11 @@
+package com.library.notification;
+
+/**
+ * Why a patron is being reminded about an item.
+ */
+public enum ReminderType {
+    /** Due within the reminder window. */
+    DUE_SOON,
+    /** Past its due date. */
+    OVERDUE
+}
@@ -0,0 +1,143 @@
+package com.library.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative int keys to int counts.
+ * Stores keys and values in two flat arrays, with no boxing and no per-entry objects.
+ * Entries are only added or incremented; shrinking happens by rebuilding via retainTop.
+ * Not thread-safe.
+ */
+class IntIntMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds one to a key's count, inserting it at 1 if absent.
+     * @param key The key, at least 0
+     */
+    void increment(int key) {
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            values[slot]++;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = 1;
+        if (++size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    int get(int key) {
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Keeps only the {@code k} highest counts, dropping the rest.
+     * @param k The number of entries to keep
+     */
+    void retainTop(int k) {
+        if (size <= k) {
+            return;
+        }
+        int[] counts = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                counts[n++] = values[slot];
+            }
+        }
+        Arrays.sort(counts);
+        int threshold = counts[size - k];
+        // Ties at the threshold are kept in slot order until k entries are kept
+        int strictlyAbove = size - k;
+        while (strictlyAbove < size && counts[strictlyAbove] == threshold) {
+            strictlyAbove++;
+        }
+        int tiesToKeep = k - (size - strictlyAbove);
+
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        clear(keys.length);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            int key = oldKeys[slot];
+            if (key == EMPTY || oldValues[slot] < threshold) {
+                continue;
+            }
+            if (oldValues[slot] == threshold) {
+                if (tiesToKeep == 0) {
+                    continue;
+                }
+                tiesToKeep--;
+            }
+            put(key, oldValues[slot]);
+        }
+    }
+
+    /**
+     * Calls the visitor once per entry, in no particular order.
+     * @param visitor The visitor
+     */
+    void forEach(EntryVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.visit(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    interface EntryVisitor {
+        void visit(int key, int value);
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int h = key * 0x9E3779B9; // Fibonacci hashing spreads sequential ids
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void put(int key, int value) {
+        int slot = slotOf(key);
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        clear(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void clear(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+}
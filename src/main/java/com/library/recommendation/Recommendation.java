@@ -0,0 +1,46 @@
+package com.library.recommendation;
+
+/**
+ * A book recommended alongside another, with the evidence behind it.
+ */
+public class Recommendation {
+    private final String isbn;
+    private final int coBorrowCount;
+    private final double score;
+
+    public Recommendation(String isbn, int coBorrowCount, double score) {
+        this.isbn = isbn;
+        this.coBorrowCount = coBorrowCount;
+        this.score = score;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * Gets how many times the two books were borrowed close together by the same patron.
+     * @return The co-borrow count
+     */
+    public int getCoBorrowCount() {
+        return coBorrowCount;
+    }
+
+    /**
+     * Gets the co-borrow count normalized by both books' popularity (cosine similarity),
+     * so universally popular books do not top every list.
+     * @return The score, between 0 and 1
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "Recommendation{" +
+                "isbn='" + isbn + '\'' +
+                ", coBorrowCount=" + coBorrowCount +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,221 @@
+package com.library.recommendation;
+
+import com.library.event.DomainEvent;
+import com.library.event.EventConsumer;
+import com.library.event.EventType;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Patrons who borrowed this also borrowed" recommendations.
+ *
+ * Keeps an item-to-item co-occurrence model that is updated incrementally: on each
+ * checkout, the book is paired with the patron's last {@code historyLength} distinct
+ * checkouts and both directions of every pair are counted. ISBNs are interned to dense
+ * int ids and each book's neighbours live in a primitive {@link IntIntMap}; once a row
+ * grows to twice {@code maxNeighbors} it is pruned back to its strongest
+ * {@code maxNeighbors} entries, so memory is bounded by books x neighbours however many
+ * loans are recorded. A query reads one row, so it never touches borrowing histories.
+ *
+ * Subscribe the engine to the event ring buffer LoanService publishes to, and call
+ * {@link #loadHistory(Collection)} once to learn from loans made before it started.
+ */
+public class RecommendationEngine implements EventConsumer {
+    public static final int DEFAULT_HISTORY_LENGTH = 20;
+    public static final int DEFAULT_MAX_NEIGHBORS = 50;
+
+    private final int historyLength;
+    private final int maxNeighbors;
+
+    private final Map<String, Integer> itemIds;
+    private final List<String> isbns; // Indexed by item id
+    private final List<IntIntMap> neighbors; // Indexed by item id; null once the book is removed
+    private int[] checkouts; // Indexed by item id
+    private final Map<Integer, RecentItems> recentItems; // Key: patronId
+    private final ReentrantReadWriteLock lock;
+
+    public RecommendationEngine() {
+        this(DEFAULT_HISTORY_LENGTH, DEFAULT_MAX_NEIGHBORS);
+    }
+
+    /**
+     * Creates the engine.
+     * @param historyLength How many of a patron's previous checkouts each new checkout is paired with
+     * @param maxNeighbors How many co-borrowed books are kept per book
+     */
+    public RecommendationEngine(int historyLength, int maxNeighbors) {
+        if (historyLength < 1 || maxNeighbors < 1) {
+            throw new IllegalArgumentException("historyLength and maxNeighbors must be positive");
+        }
+        this.historyLength = historyLength;
+        this.maxNeighbors = maxNeighbors;
+        this.itemIds = new HashMap<>();
+        this.isbns = new ArrayList<>();
+        this.neighbors = new ArrayList<>();
+        this.checkouts = new int[64];
+        this.recentItems = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event, long sequence, boolean endOfBatch) {
+        if (event.getType() == EventType.BOOK_CHECKED_OUT) {
+            recordCheckout(event.getPatronId(), event.getIsbn());
+        } else if (event.getType() == EventType.BOOK_REMOVED) {
+            removeBook(event.getIsbn());
+        }
+    }
+
+    /**
+     * Replays existing borrowing histories, e.g. at startup.
+     * @param patrons The patrons whose histories to learn from
+     */
+    public void loadHistory(Collection<Patron> patrons) {
+        for (Patron patron : patrons) {
+            List<Loan> history = new ArrayList<>(patron.getBorrowingHistory());
+            history.sort(Comparator.comparing(Loan::getCheckoutDate));
+            for (Loan loan : history) {
+                recordCheckout(patron.getPatronId(), loan.getBook().getIsbn());
+            }
+        }
+    }
+
+    /**
+     * Pairs a checkout with the patron's recent checkouts.
+     * @param patronId The borrowing patron
+     * @param isbn The ISBN of the borrowed book
+     */
+    public void recordCheckout(int patronId, String isbn) {
+        lock.writeLock().lock();
+        try {
+            int item = intern(isbn);
+            checkouts[item]++;
+            RecentItems recent = recentItems.computeIfAbsent(patronId, id -> new RecentItems(historyLength));
+            int available = Math.min(recent.recorded, historyLength);
+            for (int i = 0; i < available; i++) {
+                if (recent.items[i] == item) {
+                    return; // Borrowed again recently; the pairs were already counted
+                }
+            }
+            for (int i = 0; i < available; i++) {
+                int other = recent.items[i];
+                if (neighbors.get(other) == null) {
+                    continue; // Removed from the catalog
+                }
+                link(item, other);
+                link(other, item);
+            }
+            recent.items[recent.recorded % historyLength] = item;
+            recent.recorded++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forgets a book that left the catalog. It stops being recommended and stops
+     * collecting recommendations; its id is not reused.
+     * @param isbn The ISBN of the removed book
+     */
+    public void removeBook(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Integer item = itemIds.get(isbn);
+            if (item != null) {
+                neighbors.set(item, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the books most often borrowed by patrons who also borrowed the given one.
+     * @param isbn The ISBN of the book being viewed
+     * @param limit The maximum number of recommendations
+     * @return Recommendations in descending order of score, empty if there is no data yet
+     */
+    public List<Recommendation> recommend(String isbn, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer item = itemIds.get(isbn);
+            IntIntMap row = item != null ? neighbors.get(item) : null;
+            List<Recommendation> results = new ArrayList<>();
+            if (row == null || limit <= 0) {
+                return results;
+            }
+            double itemCheckouts = checkouts[item];
+            row.forEach((other, count) -> {
+                if (neighbors.get(other) != null) {
+                    double score = count / Math.sqrt(itemCheckouts * checkouts[other]);
+                    results.add(new Recommendation(isbns.get(other), count, Math.min(1.0, score)));
+                }
+            });
+            results.sort(Comparator.comparingDouble(Recommendation::getScore).reversed()
+                    .thenComparing(Comparator.comparingInt(Recommendation::getCoBorrowCount).reversed())
+                    .thenComparing(Recommendation::getIsbn));
+            return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of books the model has seen borrowed.
+     * @return The book count
+     */
+    public int getBookCount() {
+        lock.readLock().lock();
+        try {
+            return isbns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A patron's last few distinct checkouts, as a ring of item ids.
+     */
+    private static final class RecentItems {
+        final int[] items;
+        int recorded; // Checkouts written so far; the next one goes to recorded % length
+
+        RecentItems(int length) {
+            this.items = new int[length];
+        }
+    }
+
+    private int intern(String isbn) {
+        Integer existing = itemIds.get(isbn);
+        if (existing != null) {
+            if (neighbors.get(existing) == null) {
+                neighbors.set(existing, new IntIntMap(4)); // Re-added after removal
+            }
+            return existing;
+        }
+        int item = isbns.size();
+        itemIds.put(isbn, item);
+        isbns.add(isbn);
+        neighbors.add(new IntIntMap(4));
+        if (item == checkouts.length) {
+            checkouts = Arrays.copyOf(checkouts, item * 2);
+        }
+        return item;
+    }
+
+    private void link(int from, int to) {
+        IntIntMap row = neighbors.get(from);
+        row.increment(to);
+        if (row.size() >= 2 * maxNeighbors) {
+            row.retainTop(maxNeighbors);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.replication;
+
+/**
+ * A leader's view of one connected follower.
+ */
+public class FollowerStatus {
+    private final String address;
+    private final long connectedAt;
+    private final boolean synced;
+    private final long acknowledgedSequence;
+    private final long lagEvents;
+    private final long eventsSent;
+
+    public FollowerStatus(String address, long connectedAt, boolean synced, long acknowledgedSequence,
+                          long lagEvents, long eventsSent) {
+        this.address = address;
+        this.connectedAt = connectedAt;
+        this.synced = synced;
+        this.acknowledgedSequence = acknowledgedSequence;
+        this.lagEvents = lagEvents;
+        this.eventsSent = eventsSent;
+    }
+
+    // Getters
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Gets when the follower connected.
+     * @return Milliseconds since the epoch
+     */
+    public long getConnectedAt() {
+        return connectedAt;
+    }
+
+    /**
+     * Checks whether the full sync has been sent and events are streaming.
+     * @return true once streaming
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Gets the sequence of the last event the follower confirmed it applied.
+     * @return The sequence, or -1 before the first acknowledgement
+     */
+    public long getAcknowledgedSequence() {
+        return acknowledgedSequence;
+    }
+
+    /**
+     * Gets how many published events the follower has not confirmed yet.
+     * @return The lag in events, or -1 while the full sync is in progress
+     */
+    public long getLagEvents() {
+        return lagEvents;
+    }
+
+    public long getEventsSent() {
+        return eventsSent;
+    }
+
+    @Override
+    public String toString() {
+        return "FollowerStatus{" +
+                "address='" + address + '\'' +
+                ", synced=" + synced +
+                ", acknowledgedSequence=" + acknowledgedSequence +
+                ", lagEvents=" + lagEvents +
+                ", eventsSent=" + eventsSent +
+                '}';
+    }
+}
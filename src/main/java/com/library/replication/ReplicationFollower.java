@@ -0,0 +1,530 @@
+package com.library.replication;
+
+import com.library.event.EventType;
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.model.PatronCategory;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.service.PatronService;
+import com.library.util.LoggerUtil;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Hot standby that mirrors a ReplicationLeader into its own services.
+ *
+ * The follower connects to the leader, applies the full sync and then every event it
+ * streams, all on one thread and in the leader's order, through the follower's own
+ * BookService, PatronService and LoanService. Book revisions keep the leader's version
+ * numbers, and loans are installed as the leader made them, with their IDs and dates and
+ * without re-checking the borrowing policy, so a promoted follower carries on where the
+ * leader stopped. Applying is idempotent: a revision no newer than the stored one changes
+ * nothing, and each book remembers the highest loan ID whose checkout it reflects, starting
+ * from the watermark the sync read with the book, so a checkout the sync already had is
+ * skipped; a return only closes the loan with its ID. A checkout or return that cannot be
+ * applied means the follower has diverged, and it resyncs. After a dropped connection the
+ * follower reconnects with backoff and resyncs; the sync also removes books and closes loans
+ * that disappeared on the leader in the meantime.
+ *
+ * Until promoted, the follower's services are read-only replicas: serve searches and
+ * lookups from them, but send every change to the leader. {@link #promote()} stops
+ * replication so the services can take writes. Leader and follower should draw patron
+ * IDs from a LeasedPatronIdAllocator over a shared data directory, so a promoted follower
+ * never reissues an ID.
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int READ_TIMEOUT_MILLIS = (int) (5 * ReplicationLeader.HEARTBEAT_INTERVAL_MILLIS);
+    private static final long INITIAL_RECONNECT_DELAY_MILLIS = 100;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 5000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    private final String host;
+    private final int port;
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final LoanService loanService;
+    private final Map<String, Long> lastLoanIds; // Key: ISBN, Value: highest loan ID whose checkout is reflected
+    private final Object monitor; // Guards the lifecycle; notified on sync and on every batch
+    private Thread thread;
+    private Socket socket;
+    private volatile boolean running;
+    private volatile boolean promoted;
+
+    // Written only by the replication thread
+    private volatile boolean connected;
+    private volatile boolean synced;
+    private volatile long fullSyncs;
+    private volatile long eventsApplied;
+    private volatile long batchesApplied;
+    private volatile long appliedSequence = -1;
+    private volatile long leaderCursor;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+    private volatile long totalLagMillis;
+    private volatile long streamingSince; // System.nanoTime() of the first completed sync, 0 before
+
+    /**
+     * Creates a follower. Its services must use repositories of their own.
+     * @param host The leader's host
+     * @param port The leader's replication port
+     * @param bookService The follower's catalog
+     * @param patronService The follower's patrons
+     * @param loanService The follower's circulation
+     */
+    public ReplicationFollower(String host, int port, BookService bookService, PatronService patronService,
+                               LoanService loanService) {
+        this.host = host;
+        this.port = port;
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.loanService = loanService;
+        this.lastLoanIds = new HashMap<>(); // Only the replication thread touches it
+        this.monitor = new Object();
+    }
+
+    /**
+     * Starts following the leader on a background thread.
+     */
+    public void start() {
+        synchronized (monitor) {
+            if (thread != null) {
+                throw new IllegalStateException("Follower already started");
+            }
+            running = true;
+            thread = new Thread(this::followLeader, "replication-follower");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Waits until a full sync has completed and events are streaming.
+     * @param timeout The longest time to wait
+     * @param unit The unit of the timeout
+     * @return true if synced, false if the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitSync(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (monitor) {
+            while (!synced) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Waits until the event at a leader sequence has been applied, e.g. to measure lag
+     * or to read one's own writes from the follower.
+     * @param sequence The leader sequence, such as the leader's cursor minus one
+     * @param timeout The longest time to wait
+     * @param unit The unit of the timeout
+     * @return true if applied, false if the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitApplied(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (monitor) {
+            while (appliedSequence < sequence) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops replicating so this instance can take over as the primary. Whatever was
+     * applied stays; changes the leader made after the last applied event are lost,
+     * so check {@link #getStats()} for the lag first when the old leader is still reachable.
+     */
+    public void promote() {
+        promoted = true;
+        stop();
+        logger.log(Level.WARNING, "Follower promoted at leader sequence " + appliedSequence);
+    }
+
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    /**
+     * Gets the current replication statistics.
+     * @return The statistics
+     */
+    public ReplicationStats getStats() {
+        long applied = eventsApplied;
+        long since = streamingSince;
+        double seconds = since != 0 ? (System.nanoTime() - since) / 1e9 : 0;
+        return new ReplicationStats(connected, synced, fullSyncs, applied, batchesApplied, appliedSequence,
+                Math.max(0, leaderCursor - 1 - appliedSequence), lastLagMillis, maxLagMillis,
+                applied > 0 ? (double) totalLagMillis / applied : 0, seconds > 0 ? applied / seconds : 0);
+    }
+
+    /**
+     * Stops replicating and disconnects from the leader.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void stop() {
+        Thread replication;
+        synchronized (monitor) {
+            running = false;
+            replication = thread;
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+            monitor.notifyAll();
+        }
+        if (replication != null && replication != Thread.currentThread()) {
+            try {
+                replication.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void followLeader() {
+        long delay = INITIAL_RECONNECT_DELAY_MILLIS;
+        while (running) {
+            try (Socket connection = new Socket()) {
+                synchronized (monitor) {
+                    if (!running) {
+                        return;
+                    }
+                    socket = connection;
+                }
+                connection.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                connection.setSoTimeout(READ_TIMEOUT_MILLIS);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), BUFFER_SIZE));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                out.writeByte(ReplicationProtocol.HELLO);
+                out.writeInt(ReplicationProtocol.MAGIC);
+                out.writeInt(ReplicationProtocol.VERSION);
+                out.flush();
+                connected = true;
+                logger.log(Level.INFO, "Connected to replication leader " + host + ":" + port);
+                delay = INITIAL_RECONNECT_DELAY_MILLIS;
+                replicate(in, out);
+            } catch (ConnectException e) {
+                if (running) {
+                    logger.log(Level.INFO, "Replication leader " + host + ":" + port + " unreachable, retrying in "
+                            + delay + " ms");
+                }
+            } catch (EOFException | SocketException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "Replication leader " + host + ":" + port + " disconnected");
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "Replication from " + host + ":" + port + " failed: " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+                synced = false;
+            }
+
+            synchronized (monitor) {
+                socket = null;
+                if (running) {
+                    try {
+                        monitor.wait(delay); // stop() wakes this early
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Collects what a full sync contained, to reconcile the follower's state at SYNC_END.
+     */
+    private static final class SyncState {
+        final Set<String> isbns = new HashSet<>();
+        final Set<String> loanedIsbns = new HashSet<>();
+        final Map<String, Loan> activeLoans = new HashMap<>(); // The follower's open loans before the sync
+        final Map<Long, Loan> provisionalReturns = new HashMap<>(); // Closed before the leader's return date arrived
+        final Map<Integer, Map<Long, Loan>> histories = new HashMap<>(); // Indexed on first use, by loan ID
+
+        Map<Long, Loan> historyOf(Patron patron) {
+            return histories.computeIfAbsent(patron.getPatronId(), id -> {
+                Map<Long, Loan> loans = new HashMap<>();
+                for (Loan loan : patron.getBorrowingHistory()) {
+                    loans.put(loan.getLoanId(), loan);
+                }
+                return loans;
+            });
+        }
+    }
+
+    private void replicate(DataInputStream in, DataOutputStream out) throws IOException {
+        SyncState sync = null;
+        long startSequence = -1;
+        while (true) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case ReplicationProtocol.SYNC_BEGIN:
+                    startSequence = in.readLong();
+                    sync = new SyncState();
+                    for (Loan loan : loanService.getActiveLoans()) {
+                        sync.activeLoans.put(loan.getBook().getIsbn(), loan);
+                    }
+                    break;
+                case ReplicationProtocol.SYNC_BOOK:
+                    applySyncedBook(ReplicationProtocol.readBook(in), in.readLong(), requireSync(sync));
+                    break;
+                case ReplicationProtocol.SYNC_PATRON:
+                    upsertPatron(ReplicationProtocol.readPatron(in));
+                    break;
+                case ReplicationProtocol.SYNC_LOAN:
+                    applySyncedLoan(in.readLong(), in.readInt(), ReplicationProtocol.readBook(in),
+                            ReplicationProtocol.readDate(in), ReplicationProtocol.readDate(in), requireSync(sync));
+                    break;
+                case ReplicationProtocol.SYNC_END:
+                    leaderCursor = in.readLong();
+                    finishSync(requireSync(sync), startSequence);
+                    sync = null;
+                    break;
+                case ReplicationProtocol.EVENT:
+                    applyEvent(in);
+                    break;
+                case ReplicationProtocol.BATCH_END:
+                    in.readLong();
+                    leaderCursor = in.readLong();
+                    batchesApplied++;
+                    out.writeByte(ReplicationProtocol.ACK);
+                    out.writeLong(appliedSequence);
+                    out.flush();
+                    synchronized (monitor) {
+                        monitor.notifyAll();
+                    }
+                    break;
+                case ReplicationProtocol.HEARTBEAT:
+                    leaderCursor = in.readLong();
+                    break;
+                default:
+                    throw new IOException("Unknown replication frame " + frame);
+            }
+        }
+    }
+
+    private static SyncState requireSync(SyncState sync) throws IOException {
+        if (sync == null) {
+            throw new IOException("Sync record outside a sync");
+        }
+        return sync;
+    }
+
+    private void applySyncedBook(Book book, long lastLoanId, SyncState sync) {
+        sync.isbns.add(book.getIsbn());
+        // The leader's state wins over anything applied before; later loans of the book have higher IDs
+        lastLoanIds.put(book.getIsbn(), lastLoanId);
+        Book stored = bookService.getBookByISBN(book.getIsbn());
+        if (stored != null && stored.getVersion() > book.getVersion()) {
+            // Only possible if the leader lost state; the leader's catalog wins
+            bookService.removeBook(book.getIsbn());
+        }
+        if (stored == null || stored.getVersion() != book.getVersion()) {
+            bookService.applyRevision(book);
+        }
+    }
+
+    private void applySyncedLoan(long loanId, int patronId, Book book, LocalDate checkoutDate, LocalDate returnDate,
+                                 SyncState sync) throws IOException {
+        Patron patron = patronService.getPatronById(patronId);
+        if (patron == null) {
+            throw new IOException("Synced loan " + loanId + " of unknown patron " + patronId);
+        }
+        String isbn = book.getIsbn();
+        if (returnDate == null) {
+            // Sent right after its book, which was read with it
+            sync.loanedIsbns.add(isbn);
+            Loan active = sync.activeLoans.get(isbn);
+            if (active != null && active.getLoanId() == loanId) {
+                return; // Already replicated
+            }
+            if (active != null) {
+                // Returned while we were disconnected, no later than this loan started; the leader's
+                // return date comes with the returned loans
+                loanService.applyReturn(active.getLoanId(), isbn, checkoutDate);
+                sync.provisionalReturns.put(active.getLoanId(), active);
+            }
+            if (!loanService.applyCheckout(loanId, isbn, patronId, checkoutDate)) {
+                throw new IOException("Synced loan " + loanId + " of " + isbn + " could not be installed");
+            }
+            return;
+        }
+        Long lastLoanId = lastLoanIds.get(isbn);
+        if (lastLoanId != null && loanId > lastLoanId) {
+            return; // Lent after its book was read, so its checkout and return are among the events
+        }
+        Loan recorded = sync.historyOf(patron).get(loanId);
+        if (recorded == null) {
+            Loan loan = new Loan(loanId, book, patron, checkoutDate);
+            loan.setReturnDate(returnDate);
+            loanService.applyReturnedLoan(loan);
+        } else if (!recorded.isReturned()) {
+            loanService.applyReturn(loanId, isbn, returnDate); // Returned while we were disconnected
+        } else if (sync.provisionalReturns.remove(loanId) != null) {
+            recorded.setReturnDate(returnDate);
+        }
+    }
+
+    private void finishSync(SyncState sync, long startSequence) {
+        for (Loan loan : loanService.getActiveLoans()) {
+            String isbn = loan.getBook().getIsbn();
+            if (sync.isbns.contains(isbn) && !sync.loanedIsbns.contains(isbn)) {
+                // The leader has the book on the shelf but no return of this loan on record; it came back
+                // before the book was read today, which is all we know of the date
+                loanService.applyReturn(loan.getLoanId(), isbn, LocalDate.now());
+                logger.log(Level.WARNING, "Replication could not reconcile loan " + loan.getLoanId() + " of " + isbn
+                        + ": the leader has the book on the shelf but no record of the return;"
+                        + " closed as of today");
+            }
+            // A loan of a book the leader no longer lists may still be open there; it stays as it is
+        }
+        for (Loan loan : sync.provisionalReturns.values()) {
+            logger.log(Level.WARNING, "Replication could not reconcile loan " + loan.getLoanId() + " of "
+                    + loan.getBook().getIsbn() + ": the leader has no record of its return; keeping return date "
+                    + loan.getReturnDate());
+        }
+        List<String> removed = bookService.books()
+                .map(Book::getIsbn)
+                .filter(isbn -> !sync.isbns.contains(isbn))
+                .collect(Collectors.toList());
+        for (String isbn : removed) {
+            bookService.removeBook(isbn);
+        }
+        synchronized (monitor) {
+            fullSyncs++;
+            appliedSequence = startSequence - 1; // The sync covers everything published before it started
+            synced = true;
+            if (streamingSince == 0) {
+                streamingSince = System.nanoTime();
+            }
+            monitor.notifyAll();
+        }
+        logger.log(Level.INFO, "Replication sync complete: " + sync.isbns.size() + " books, "
+                + sync.loanedIsbns.size() + " open loans");
+    }
+
+    private void applyEvent(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        EventType type = EVENT_TYPES[in.readByte()];
+        long timestamp = in.readLong();
+        String isbn = ReplicationProtocol.readString(in);
+        String title = ReplicationProtocol.readString(in);
+        String author = ReplicationProtocol.readString(in);
+        int publicationYear = in.readInt();
+        long bookVersion = in.readLong();
+        int patronId = in.readInt();
+        String patronName = ReplicationProtocol.readString(in);
+        String email = ReplicationProtocol.readString(in);
+        String phoneNumber = ReplicationProtocol.readString(in);
+        PatronCategory category = ReplicationProtocol.readCategory(in);
+        long loanId = in.readLong();
+        LocalDate loanDate = ReplicationProtocol.readDate(in);
+
+        switch (type) {
+            case BOOK_ADDED:
+            case BOOK_UPDATED:
+                bookService.applyRevision(new Book(title, author, isbn, publicationYear, bookVersion));
+                break;
+            case BOOK_REMOVED:
+                if (bookService.getBookByISBN(isbn) != null) {
+                    bookService.removeBook(isbn);
+                }
+                break;
+            case PATRON_ADDED:
+            case PATRON_UPDATED:
+                upsertPatron(new Patron(patronId, patronName, email, phoneNumber, category));
+                break;
+            case BOOK_CHECKED_OUT:
+                if (loanId > lastLoanIds.getOrDefault(isbn, 0L)) {
+                    if (!loanService.applyCheckout(loanId, isbn, patronId, loanDate)) {
+                        throw new IOException("Replicated checkout of loan " + loanId + " of " + isbn
+                                + " could not be applied; resyncing");
+                    }
+                    lastLoanIds.put(isbn, loanId);
+                }
+                break;
+            case BOOK_RETURNED:
+                // A loan at or below the book's last applied ID that is not open was closed by the sync
+                if (!loanService.applyReturn(loanId, isbn, loanDate) && loanId > lastLoanIds.getOrDefault(isbn, 0L)) {
+                    throw new IOException("Replicated return of loan " + loanId + " of " + isbn
+                            + " has no checkout on record; resyncing");
+                }
+                break;
+            default:
+                break;
+        }
+
+        long lag = Math.max(0, System.currentTimeMillis() - timestamp);
+        lastLagMillis = lag;
+        maxLagMillis = Math.max(maxLagMillis, lag);
+        totalLagMillis += lag;
+        eventsApplied++;
+        appliedSequence = sequence;
+    }
+
+    private void upsertPatron(Patron patron) {
+        Patron existing = patronService.getPatronById(patron.getPatronId());
+        if (existing == null) {
+            patronService.addPatron(patron);
+            return;
+        }
+        // Update in place so the borrowing history and open loans keep pointing at one object
+        existing.setName(patron.getName());
+        existing.setEmail(patron.getEmail());
+        existing.setPhoneNumber(patron.getPhoneNumber());
+        existing.setCategory(patron.getCategory());
+        patronService.updatePatron(existing.getPatronId(), existing);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closing; nothing useful to do
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.library.replication;
+
+import com.library.event.DomainEvent;
+import com.library.event.EventConsumer;
+import com.library.event.EventProcessor;
+import com.library.event.EventRingBuffer;
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.service.PatronService;
+import com.library.util.LoggerUtil;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams every catalog, patron and circulation change to hot-standby followers over TCP.
+ *
+ * The leader listens on a socket; each follower that connects gets a full sync of the books,
+ * patrons and loans, then the domain events the services publish to the ring buffer, in the
+ * order they were published. Each follower is fed by its own EventProcessor, started before
+ * the sync is read; events published during the sync are buffered in memory and sent right
+ * after it, so nothing is missed and a long sync cannot make the ring overrun the follower.
+ * Each book is synced with its open loan and a loan-ID watermark read at one instant, which
+ * tells the follower which of the events sent after the sync it already reflects.
+ * Events go out in the processor's batches with one flush per batch, and the follower
+ * acknowledges each batch, which gives the leader each follower's lag. An idle leader sends
+ * a heartbeat every second so followers can tell a quiet leader from a dead one.
+ *
+ * Publishing never waits for a follower. A follower that falls a full ring behind is
+ * disconnected, and catches up with a fresh full sync when it reconnects.
+ */
+public class ReplicationLeader implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    static final long HEARTBEAT_INTERVAL_MILLIS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SYNC_BACKLOG_BYTES = 256 * 1024 * 1024;
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    private final EventRingBuffer eventBuffer;
+    private final BookService bookService;
+    private final PatronService patronService;
+    private final LoanService loanService;
+    private final int batchSize;
+    private final List<FollowerSession> sessions;
+    private ServerSocket serverSocket;
+    private ScheduledExecutorService heartbeats;
+    private volatile boolean running;
+
+    public ReplicationLeader(EventRingBuffer eventBuffer, BookService bookService, PatronService patronService,
+                             LoanService loanService) {
+        this(eventBuffer, bookService, patronService, loanService, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a leader. The services must publish to the given ring buffer.
+     * @param eventBuffer The ring buffer the services publish to
+     * @param bookService The catalog to sync
+     * @param patronService The patrons, and their returned loans, to sync
+     * @param loanService The open loans to sync
+     * @param batchSize The most events sent per flush
+     */
+    public ReplicationLeader(EventRingBuffer eventBuffer, BookService bookService, PatronService patronService,
+                             LoanService loanService, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.eventBuffer = eventBuffer;
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.loanService = loanService;
+        this.batchSize = batchSize;
+        this.sessions = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Starts accepting followers on the loopback interface.
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public void start(int port) throws IOException {
+        start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Starts accepting followers. The stream is not authenticated or encrypted,
+     * so only bind to addresses reachable from trusted hosts.
+     * @param address The address to listen on
+     * @throws IOException If the address cannot be bound
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Leader already started");
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        running = true;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replication-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        Thread acceptor = new Thread(this::acceptFollowers, "replication-leader");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.log(Level.INFO, "Replication leader listening on " + serverSocket.getLocalSocketAddress());
+    }
+
+    /**
+     * Gets the port the leader listens on.
+     * @return The bound port, or -1 if not started
+     */
+    public synchronized int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Gets the state of every connected follower.
+     * @return One status per follower
+     */
+    public List<FollowerStatus> getFollowers() {
+        long cursor = eventBuffer.getCursor();
+        List<FollowerStatus> statuses = new ArrayList<>(sessions.size());
+        for (FollowerSession session : sessions) {
+            statuses.add(session.status(cursor));
+        }
+        return statuses;
+    }
+
+    /**
+     * Stops accepting followers and disconnects the connected ones.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        if (serverSocket != null) {
+            closeQuietly(serverSocket);
+        }
+        for (FollowerSession session : sessions) {
+            session.disconnect();
+        }
+    }
+
+    private void acceptFollowers() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "Replication leader stopped accepting: " + e.getMessage());
+                }
+                return;
+            }
+            FollowerSession session = new FollowerSession(socket);
+            sessions.add(session);
+            Thread thread = new Thread(session, "replication-session-" + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void sendHeartbeats() {
+        long cursor = eventBuffer.getCursor();
+        for (FollowerSession session : sessions) {
+            session.heartbeat(cursor);
+        }
+    }
+
+    /**
+     * One connected follower: syncs it, then feeds it events from its own processor.
+     * The session thread reads acknowledgements; the processor thread writes events.
+     */
+    private final class FollowerSession implements EventConsumer, Runnable {
+        private final Socket socket;
+        private final long connectedAt;
+        private final Object writeLock; // Orders event, batch and heartbeat frames on the socket
+        private DataOutputStream out;
+        private ByteArrayOutputStream backlogBytes; // Events published during the sync
+        private DataOutputStream backlog;
+        private long backlogSequence = -1; // Last event in the backlog
+        private EventProcessor processor;
+        private volatile boolean streaming;
+        private volatile boolean closed;
+        private volatile long ackedSequence = -1;
+        private volatile long eventsSent;
+
+        FollowerSession(Socket socket) {
+            this.socket = socket;
+            this.connectedAt = System.currentTimeMillis();
+            this.writeLock = new Object();
+            this.backlogBytes = new ByteArrayOutputStream(BUFFER_SIZE);
+            this.backlog = new DataOutputStream(backlogBytes);
+        }
+
+        @Override
+        public void run() {
+            try {
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+                if (in.readByte() != ReplicationProtocol.HELLO || in.readInt() != ReplicationProtocol.MAGIC
+                        || in.readInt() != ReplicationProtocol.VERSION) {
+                    throw new IOException("Not a replication follower");
+                }
+
+                // Start consuming before reading the catalog, so every change made during the sync is kept
+                processor = eventBuffer.addConsumer(this, batchSize);
+                long startSequence = processor.getNextSequence();
+                processor.start("replication-stream-" + socket.getRemoteSocketAddress());
+                long started = System.nanoTime();
+                int records = fullSync(startSequence);
+                int buffered = startStreaming();
+                logger.log(Level.INFO, "Follower " + socket.getRemoteSocketAddress() + " synced " + records
+                        + " records in " + (System.nanoTime() - started) / 1_000_000 + " ms, then "
+                        + buffered + " bytes of changes made meanwhile");
+
+                while (!closed) {
+                    if (in.readByte() != ReplicationProtocol.ACK) {
+                        throw new IOException("Unexpected frame from follower");
+                    }
+                    ackedSequence = in.readLong();
+                }
+            } catch (EOFException | SocketException e) {
+                if (!closed) {
+                    logger.log(Level.INFO, "Follower " + socket.getRemoteSocketAddress() + " disconnected");
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Follower " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage());
+            } finally {
+                disconnect();
+                sessions.remove(this);
+                if (processor != null) {
+                    processor.stop(); // Never called from the processor's own thread
+                }
+            }
+        }
+
+        /**
+         * Writes the full sync. Only the session thread writes to the socket until streaming starts.
+         *
+         * Each book is read together with its open loan and the last loan ID issued, under the
+         * lock its changes take, so the follower knows exactly which of the book's loan events
+         * the sync already reflects: those of loans up to that ID. Returned loans are sent after
+         * the books, so every loan returned before its book was read is among them.
+         */
+        private int fullSync(long startSequence) throws IOException {
+            int records = 0;
+            out.writeByte(ReplicationProtocol.SYNC_BEGIN);
+            out.writeLong(startSequence);
+            for (Patron patron : patronService.getAllPatrons()) {
+                out.writeByte(ReplicationProtocol.SYNC_PATRON);
+                ReplicationProtocol.writePatron(out, patron);
+                records++;
+            }
+            Iterator<Book> books = bookService.books().iterator(); // Streamed, so a disk catalog stays off the heap
+            while (books.hasNext()) {
+                String isbn = books.next().getIsbn();
+                Book book;
+                Loan openLoan;
+                long lastLoanId;
+                ReentrantLock lock = loanService.lockFor(isbn);
+                lock.lock();
+                try {
+                    book = bookService.getBookByISBN(isbn);
+                    openLoan = loanService.getActiveLoan(isbn);
+                    lastLoanId = loanService.getLastLoanId();
+                } finally {
+                    lock.unlock(); // Before writing, so a slow follower never holds up checkouts
+                }
+                if (book == null) {
+                    continue; // Removed since the stream read it; the removal event follows
+                }
+                out.writeByte(ReplicationProtocol.SYNC_BOOK);
+                ReplicationProtocol.writeBook(out, book);
+                out.writeLong(lastLoanId);
+                records++;
+                if (openLoan != null) {
+                    // The borrower may have registered after the patrons above were read
+                    out.writeByte(ReplicationProtocol.SYNC_PATRON);
+                    ReplicationProtocol.writePatron(out, openLoan.getPatron());
+                    out.writeByte(ReplicationProtocol.SYNC_LOAN);
+                    ReplicationProtocol.writeLoan(out, openLoan);
+                    records++;
+                }
+            }
+            for (Patron patron : patronService.getAllPatrons()) { // Again, for patrons who registered meanwhile
+                for (Loan loan : patron.getBorrowingHistory()) {
+                    if (loan.isReturned()) {
+                        out.writeByte(ReplicationProtocol.SYNC_LOAN);
+                        ReplicationProtocol.writeLoan(out, loan);
+                        records++;
+                    }
+                }
+            }
+            out.writeByte(ReplicationProtocol.SYNC_END);
+            out.writeLong(eventBuffer.getCursor());
+            out.flush();
+            return records;
+        }
+
+        /**
+         * Sends the events buffered during the sync and switches to writing events directly.
+         * @return The number of buffered bytes sent
+         */
+        private int startStreaming() throws IOException {
+            synchronized (writeLock) {
+                if (closed) {
+                    throw new IOException("Disconnected during sync");
+                }
+                int buffered = backlogBytes.size();
+                backlogBytes.writeTo(out);
+                if (backlogSequence >= 0) {
+                    writeBatchEnd(backlogSequence);
+                }
+                out.flush();
+                backlogBytes = null;
+                backlog = null;
+                streaming = true;
+                return buffered;
+            }
+        }
+
+        @Override
+        public void onEvent(DomainEvent event, long sequence, boolean endOfBatch) {
+            if (closed) {
+                return;
+            }
+            try {
+                synchronized (writeLock) {
+                    if (!streaming) {
+                        ReplicationProtocol.writeEvent(backlog, event, sequence);
+                        backlogSequence = sequence;
+                        if (backlogBytes.size() > MAX_SYNC_BACKLOG_BYTES) {
+                            throw new IOException("too many changes during the full sync");
+                        }
+                    } else {
+                        ReplicationProtocol.writeEvent(out, event, sequence);
+                        if (endOfBatch) {
+                            writeBatchEnd(sequence);
+                            out.flush();
+                        }
+                    }
+                }
+                eventsSent++;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Follower " + socket.getRemoteSocketAddress() + " write failed: " + e.getMessage());
+                disconnect();
+            }
+        }
+
+        @Override
+        public void onOverrun(long missedEvents) {
+            logger.log(Level.WARNING, "Follower " + socket.getRemoteSocketAddress() + " fell " + missedEvents
+                    + " events behind; disconnecting it for a full resync");
+            disconnect();
+        }
+
+        void heartbeat(long cursor) {
+            // Only once the follower has been sent everything; otherwise the next batch reports progress
+            if (!streaming || closed || processor.getNextSequence() < cursor) {
+                return;
+            }
+            try {
+                synchronized (writeLock) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(cursor);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        private void writeBatchEnd(long sequence) throws IOException {
+            out.writeByte(ReplicationProtocol.BATCH_END);
+            out.writeLong(sequence);
+            out.writeLong(eventBuffer.getCursor());
+        }
+
+        FollowerStatus status(long cursor) {
+            long acked = ackedSequence;
+            return new FollowerStatus(String.valueOf(socket.getRemoteSocketAddress()), connectedAt, streaming,
+                    acked, streaming ? Math.max(0, cursor - 1 - acked) : -1, eventsSent);
+        }
+
+        void disconnect() {
+            closed = true;
+            closeQuietly(socket); // Unblocks the session thread, which stops the processor
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // Already closing; nothing useful to do
+        }
+    }
+}
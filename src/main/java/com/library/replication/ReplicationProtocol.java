@@ -0,0 +1,135 @@
+package com.library.replication;
+
+import com.library.event.DomainEvent;
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.model.PatronCategory;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Wire format shared by the leader and its followers.
+ *
+ * Every frame starts with a one-byte type. After the follower's HELLO, the leader sends a
+ * full sync (SYNC_BEGIN, the patrons, each book with the last loan ID issued when it was read
+ * and its open loan, the returned loans, SYNC_END) and then streams EVENT
+ * frames; each batch of events is closed by a BATCH_END, which the follower answers with
+ * an ACK once the batch is applied, and an idle leader sends HEARTBEATs. Strings are
+ * written as a presence flag plus modified UTF-8, so nulls survive the trip.
+ */
+final class ReplicationProtocol {
+    static final int MAGIC = 0x4C524550; // "LREP"
+    static final int VERSION = 3;
+
+    // Follower to leader
+    static final byte HELLO = 1;
+    static final byte ACK = 2;
+
+    // Leader to follower
+    static final byte SYNC_BEGIN = 10;
+    static final byte SYNC_BOOK = 11;
+    static final byte SYNC_PATRON = 12;
+    static final byte SYNC_LOAN = 13;
+    static final byte SYNC_END = 14;
+    static final byte EVENT = 15;
+    static final byte BATCH_END = 16;
+    static final byte HEARTBEAT = 17;
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeBook(DataOutputStream out, Book book) throws IOException {
+        writeString(out, book.getIsbn());
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        out.writeInt(book.getPublicationYear());
+        out.writeLong(book.getVersion());
+    }
+
+    static Book readBook(DataInputStream in) throws IOException {
+        String isbn = readString(in);
+        String title = readString(in);
+        String author = readString(in);
+        int year = in.readInt();
+        long version = in.readLong();
+        return new Book(title, author, isbn, year, version);
+    }
+
+    static void writePatron(DataOutputStream out, Patron patron) throws IOException {
+        out.writeInt(patron.getPatronId());
+        writeString(out, patron.getName());
+        writeString(out, patron.getEmail());
+        writeString(out, patron.getPhoneNumber());
+        writeCategory(out, patron.getCategory());
+    }
+
+    static Patron readPatron(DataInputStream in) throws IOException {
+        int patronId = in.readInt();
+        String name = readString(in);
+        String email = readString(in);
+        String phoneNumber = readString(in);
+        return new Patron(patronId, name, email, phoneNumber, readCategory(in));
+    }
+
+    /**
+     * Writes a loan as its ID, patron ID, the book as lent, and its dates.
+     */
+    static void writeLoan(DataOutputStream out, Loan loan) throws IOException {
+        out.writeLong(loan.getLoanId());
+        out.writeInt(loan.getPatron().getPatronId());
+        writeBook(out, loan.getBook());
+        writeDate(out, loan.getCheckoutDate());
+        writeDate(out, loan.getReturnDate());
+    }
+
+    static void writeEvent(DataOutputStream out, DomainEvent event, long sequence) throws IOException {
+        out.writeByte(EVENT);
+        out.writeLong(sequence);
+        out.writeByte(event.getType().ordinal());
+        out.writeLong(event.getTimestamp());
+        writeString(out, event.getIsbn());
+        writeString(out, event.getTitle());
+        writeString(out, event.getAuthor());
+        out.writeInt(event.getPublicationYear());
+        out.writeLong(event.getBookVersion());
+        out.writeInt(event.getPatronId());
+        writeString(out, event.getPatronName());
+        writeString(out, event.getEmail());
+        writeString(out, event.getPhoneNumber());
+        writeCategory(out, event.getPatronCategory());
+        out.writeLong(event.getLoanId());
+        writeDate(out, event.getLoanDate());
+    }
+
+    static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date != null ? date.toEpochDay() : Long.MIN_VALUE);
+    }
+
+    static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeCategory(DataOutputStream out, PatronCategory category) throws IOException {
+        out.writeByte(category != null ? category.ordinal() : -1);
+    }
+
+    static PatronCategory readCategory(DataInputStream in) throws IOException {
+        int ordinal = in.readByte();
+        return ordinal >= 0 ? PatronCategory.values()[ordinal] : null;
+    }
+}
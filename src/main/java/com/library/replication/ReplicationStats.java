@@ -0,0 +1,118 @@
+package com.library.replication;
+
+/**
+ * A follower's replication progress, lag and throughput at one point in time.
+ */
+public class ReplicationStats {
+    private final boolean connected;
+    private final boolean synced;
+    private final long fullSyncs;
+    private final long eventsApplied;
+    private final long batchesApplied;
+    private final long appliedSequence;
+    private final long lagEvents;
+    private final long lastLagMillis;
+    private final long maxLagMillis;
+    private final double meanLagMillis;
+    private final double eventsPerSecond;
+
+    public ReplicationStats(boolean connected, boolean synced, long fullSyncs, long eventsApplied,
+                            long batchesApplied, long appliedSequence, long lagEvents, long lastLagMillis,
+                            long maxLagMillis, double meanLagMillis, double eventsPerSecond) {
+        this.connected = connected;
+        this.synced = synced;
+        this.fullSyncs = fullSyncs;
+        this.eventsApplied = eventsApplied;
+        this.batchesApplied = batchesApplied;
+        this.appliedSequence = appliedSequence;
+        this.lagEvents = lagEvents;
+        this.lastLagMillis = lastLagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.meanLagMillis = meanLagMillis;
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    // Getters
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Checks whether the current connection finished its full sync and is streaming events.
+     * @return true if streaming
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public long getFullSyncs() {
+        return fullSyncs;
+    }
+
+    public long getEventsApplied() {
+        return eventsApplied;
+    }
+
+    public long getBatchesApplied() {
+        return batchesApplied;
+    }
+
+    /**
+     * Gets the leader sequence of the last event applied.
+     * @return The sequence, or -1 before the first event
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Gets how many events the leader had published that were not applied yet,
+     * as of the last batch or heartbeat received.
+     * @return The lag in events
+     */
+    public long getLagEvents() {
+        return lagEvents;
+    }
+
+    /**
+     * Gets the time from publishing to applying the last event.
+     * Assumes the leader's and follower's clocks agree, as they do on one host.
+     * @return The lag in milliseconds
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public double getMeanLagMillis() {
+        return meanLagMillis;
+    }
+
+    /**
+     * Gets the average apply rate since the first full sync completed.
+     * @return Events applied per second
+     */
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationStats{" +
+                "connected=" + connected +
+                ", synced=" + synced +
+                ", fullSyncs=" + fullSyncs +
+                ", eventsApplied=" + eventsApplied +
+                ", batchesApplied=" + batchesApplied +
+                ", appliedSequence=" + appliedSequence +
+                ", lagEvents=" + lagEvents +
+                ", lastLagMillis=" + lastLagMillis +
+                ", maxLagMillis=" + maxLagMillis +
+                ", meanLagMillis=" + String.format("%.2f", meanLagMillis) +
+                ", eventsPerSecond=" + String.format("%.0f", eventsPerSecond) +
+                '}';
+    }
+}
@@ -1,61 +1,216 @@
 package com.library.repository;
 
 import com.library.model.Book;
+import com.library.strategy.SearchStrategy;
+import com.library.util.StripedLock;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository class for managing Book data.
  * Demonstrates Single Responsibility Principle - only handles data storage/retrieval.
- * Uses Map collection with ISBN as key for efficient lookups.
+ * Books are hash-partitioned by ISBN into shards, so point lookups touch one shard
+ * and searches can fan out across all of them. Books are immutable revisions swapped
+ * in with compare-and-set, so reads never lock. Versions never go back: a removed book's
+ * last version is kept, and the book gets a higher one if it is added again, so an editor
+ * holding a revision from before the removal cannot pass compare-and-set.
+ * The repository also owns the per-ISBN locks that every service changing a book or its
+ * loans holds through publishing the change, so all events about one book are in order.
  */
 public class BookRepository {
-    private Map<String, Book> books; // Key: ISBN, Value: Book
+    public static final int DEFAULT_SHARD_COUNT = 1;
+    private static final int LOCK_STRIPES = 256;
+
+    private final BookStore[] shards;
+    private final ForkJoinPool searchPool;
+    private final StripedLock isbnLocks = new StripedLock(LOCK_STRIPES);
+    private final Map<String, Long> removedVersions = new ConcurrentHashMap<>(); // Key: ISBN, Value: last version before removal
 
     public BookRepository() {
-        this.books = new HashMap<>();
+        this(DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * Creates a partitioned repository that searches on the common ForkJoin pool.
+     * @param shardCount The number of hash partitions (must be at least 1)
+     */
+    public BookRepository(int shardCount) {
+        this(shardCount, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a partitioned repository.
+     * @param shardCount The number of hash partitions (must be at least 1)
+     * @param searchPool The pool used to scan shards in parallel
+     */
+    public BookRepository(int shardCount, ForkJoinPool searchPool) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.shards = new BookStore[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new BookShard();
+        }
+        this.searchPool = searchPool;
+    }
+
+    /**
+     * Creates a repository backed by a single store, e.g. a disk-resident one.
+     * @param store The store holding the catalog
+     */
+    public BookRepository(BookStore store) {
+        this.shards = new BookStore[] {store};
+        this.searchPool = ForkJoinPool.commonPool();
     }
 
     /**
-     * Adds a book to the repository.
+     * Gets the lock that serializes changes to a book and its loans.
+     * @param isbn The ISBN of the book
+     * @return The ISBN's lock, shared by every service over this repository
+     */
+    public ReentrantLock lockFor(String isbn) {
+        return isbnLocks.forKey(isbn);
+    }
+
+    private BookStore shardFor(String isbn) {
+        int h = isbn.hashCode();
+        h ^= (h >>> 16); // Spread high bits, as HashMap does
+        return shards[Math.floorMod(h, shards.length)];
+    }
+
+    /**
+     * Adds a book to the repository. A book that was removed before comes back with a version
+     * above the removed one; read it back with {@link #findByISBN(String)} to get the stored revision.
      * @param book The book to add
      * @return true if added successfully, false if book with same ISBN already exists
      */
     public boolean addBook(Book book) {
-        if (books.containsKey(book.getIsbn())) {
-            return false; // Book with this ISBN already exists
+        String isbn = book.getIsbn();
+        ReentrantLock lock = lockFor(isbn);
+        lock.lock();
+        try {
+            Long removed = removedVersions.get(isbn);
+            if (removed != null && book.getVersion() <= removed) {
+                book = new Book(book.getTitle(), book.getAuthor(), isbn, book.getPublicationYear(), removed + 1);
+            }
+            if (!shardFor(isbn).add(book)) {
+                return false;
+            }
+            removedVersions.remove(isbn); // The stored version now carries the count on
+            return true;
+        } finally {
+            lock.unlock();
         }
-        books.put(book.getIsbn(), book);
-        return true;
     }
 
     /**
-     * Removes a book from the repository.
+     * Removes a book from the repository, remembering its version for when it is added again.
      * @param isbn The ISBN of the book to remove
      * @return true if removed successfully, false if book not found
      */
     public boolean removeBook(String isbn) {
-        if (books.containsKey(isbn)) {
-            books.remove(isbn);
+        ReentrantLock lock = lockFor(isbn);
+        lock.lock();
+        try {
+            BookStore shard = shardFor(isbn);
+            Book current = shard.get(isbn);
+            if (current == null || !shard.remove(isbn)) {
+                return false;
+            }
+            removedVersions.merge(isbn, current.getVersion(), Math::max);
             return true;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     /**
-     * Updates an existing book in the repository.
+     * Updates an existing book in the repository, whatever its current revision.
      * @param isbn The ISBN of the book to update
-     * @param updatedBook The updated book object
-     * @return true if updated successfully, false if book not found
+     * @param updatedBook The new title, author and publication year
+     * @return The revision this call stored, or null if book not found
      */
-    public boolean updateBook(String isbn, Book updatedBook) {
-        if (books.containsKey(isbn)) {
-            books.put(isbn, updatedBook);
-            return true;
+    public Book updateBook(String isbn, Book updatedBook) {
+        BookStore shard = shardFor(isbn);
+        while (true) {
+            Book current = shard.get(isbn);
+            if (current == null) {
+                return null;
+            }
+            Book next = nextRevision(current, updatedBook);
+            if (shard.replace(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Updates a book only if it has not changed since it was read.
+     * Concurrent editors each read a revision and edit it with the {@code with...} methods;
+     * the first to write wins, the others get CONFLICT instead of silently overwriting it.
+     * @param expected The revision the edit is based on
+     * @param updatedBook The new title, author and publication year
+     * @return UPDATED, NOT_FOUND, or CONFLICT if another update got there first
+     */
+    public UpdateResult compareAndUpdate(Book expected, Book updatedBook) {
+        if (compareAndSet(expected, updatedBook) != null) {
+            return UpdateResult.UPDATED;
+        }
+        return findByISBN(expected.getIsbn()) == null ? UpdateResult.NOT_FOUND : UpdateResult.CONFLICT;
+    }
+
+    /**
+     * Like {@link #compareAndUpdate(Book, Book)}, but hands back what was stored, so callers
+     * never mistake a concurrent writer's newer revision for their own.
+     * @param expected The revision the edit is based on
+     * @param updatedBook The new title, author and publication year
+     * @return The revision this call stored, or null if the book is gone or changed since expected
+     */
+    public Book compareAndSet(Book expected, Book updatedBook) {
+        BookStore shard = shardFor(expected.getIsbn());
+        Book current = shard.get(expected.getIsbn());
+        if (current == null || current.getVersion() != expected.getVersion()) {
+            return null;
         }
-        return false;
+        Book next = nextRevision(current, updatedBook);
+        return shard.replace(current, next) ? next : null;
+    }
+
+    /**
+     * Stores a revision exactly as given, version included, unless the stored one is as new.
+     * Used to install revisions made elsewhere, e.g. replicated from a leader; applying the
+     * same or an older revision again changes nothing.
+     * @param revision The revision to store
+     * @return true if stored, false if the repository already had this version or a newer one
+     */
+    public boolean applyRevision(Book revision) {
+        BookStore shard = shardFor(revision.getIsbn());
+        while (true) {
+            Book current = shard.get(revision.getIsbn());
+            if (current == null) {
+                if (shard.add(revision)) {
+                    return true;
+                }
+            } else if (current.getVersion() >= revision.getVersion()) {
+                return false;
+            } else if (shard.replace(current, revision)) {
+                return true;
+            }
+        }
+    }
+
+    private static Book nextRevision(Book current, Book updatedBook) {
+        // The ISBN is the key and stays fixed; everything else comes from the update
+        return new Book(updatedBook.getTitle(), updatedBook.getAuthor(), current.getIsbn(),
+                updatedBook.getPublicationYear(), current.getVersion() + 1);
     }
 
     /**
@@ -64,15 +219,56 @@ public class BookRepository {
      * @return The book if found, null otherwise
      */
     public Book findByISBN(String isbn) {
-        return books.get(isbn);
+        return shardFor(isbn).get(isbn);
     }
 
     /**
      * Gets all books in the repository.
+     * This puts the whole catalog on the heap; use {@link #books()} to walk a large one.
      * @return List of all books
      */
     public List<Book> getAllBooks() {
-        return new ArrayList<>(books.values());
+        return books().collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily streams all books, shard by shard, without building an intermediate list.
+     * @return Stream of books
+     */
+    public Stream<Book> books() {
+        return Arrays.stream(shards).flatMap(BookStore::stream);
+    }
+
+    /**
+     * Searches every shard with the given strategy and merges the results.
+     * With more than one shard the scans run in parallel on the search pool.
+     * @param strategy The search strategy to apply
+     * @param query The search query
+     * @return List of matching books
+     */
+    public List<Book> search(SearchStrategy strategy, String query) {
+        if (shards.length == 1) {
+            return shards[0].search(strategy, query);
+        }
+
+        List<ForkJoinTask<List<Book>>> tasks = new ArrayList<>(shards.length);
+        for (BookStore shard : shards) {
+            tasks.add(searchPool.submit(() -> shard.search(strategy, query)));
+        }
+
+        List<Book> results = new ArrayList<>();
+        for (ForkJoinTask<List<Book>> task : tasks) {
+            results.addAll(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of shards the catalog is partitioned into.
+     * @return The shard count
+     */
+    public int getShardCount() {
+        return shards.length;
     }
 
     /**
@@ -80,6 +276,10 @@ public class BookRepository {
      * @return The count of books
      */
     public int getBookCount() {
-        return books.size();
+        int count = 0;
+        for (BookStore shard : shards) {
+            count += shard.size();
+        }
+        return count;
     }
 }
@@ -0,0 +1,66 @@
+package com.library.repository;
+
+import com.library.model.Book;
+import com.library.strategy.SearchStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * One hash partition of the book catalog.
+ * Books are immutable, so the shard is a concurrent map of current revisions:
+ * readers never lock, and writers swap whole entries atomically.
+ */
+class BookShard implements BookStore {
+    private final Map<String, Book> books; // Key: ISBN, Value: current revision
+
+    BookShard() {
+        this.books = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public boolean add(Book book) {
+        return books.putIfAbsent(book.getIsbn(), book) == null;
+    }
+
+    @Override
+    public boolean remove(String isbn) {
+        return books.remove(isbn) != null;
+    }
+
+    /**
+     * Replaces a revision only if it is still the current one.
+     * Book does not override equals, so the comparison is by identity.
+     */
+    @Override
+    public boolean replace(Book current, Book next) {
+        return books.replace(current.getIsbn(), current, next);
+    }
+
+    @Override
+    public Book get(String isbn) {
+        return books.get(isbn);
+    }
+
+    @Override
+    public int size() {
+        return books.size();
+    }
+
+    @Override
+    public Stream<Book> stream() {
+        return books.values().stream();
+    }
+
+    /**
+     * Runs a search strategy over this shard only.
+     * The shard is copied first so the strategy works on a stable list.
+     */
+    @Override
+    public List<Book> search(SearchStrategy strategy, String query) {
+        List<Book> snapshot = new ArrayList<>(books.values());
+        return strategy.search(snapshot, query);
+    }
+}
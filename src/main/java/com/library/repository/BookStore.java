@@ -0,0 +1,64 @@
+package com.library.repository;
+
+import com.library.model.Book;
+import com.library.strategy.SearchStrategy;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Storage behind one BookRepository partition, keyed by ISBN.
+ * Implementations are thread-safe. Books are immutable, so stores may hand out
+ * and cache the same instances freely.
+ */
+public interface BookStore {
+    /**
+     * Stores a book unless its ISBN is already present.
+     * @param book The book
+     * @return true if stored, false if the ISBN exists
+     */
+    boolean add(Book book);
+
+    /**
+     * Removes a book.
+     * @param isbn The ISBN
+     * @return true if removed, false if not found
+     */
+    boolean remove(String isbn);
+
+    /**
+     * Gets the current revision of a book.
+     * @param isbn The ISBN
+     * @return The book, or null if not found
+     */
+    Book get(String isbn);
+
+    /**
+     * Replaces a revision only if it is still the current one.
+     * @param current The revision the caller read
+     * @param next The revision to store, with the same ISBN
+     * @return true if swapped, false if the entry changed or disappeared meanwhile
+     */
+    boolean replace(Book current, Book next);
+
+    /**
+     * Gets the number of books stored.
+     * @return The book count
+     */
+    int size();
+
+    /**
+     * Lazily streams every book. Weakly consistent: it never fails under concurrent writes,
+     * and each element is a complete revision. Stores that do not keep the catalog on the
+     * heap decode books as the stream reaches them.
+     * @return Stream of books
+     */
+    Stream<Book> stream();
+
+    /**
+     * Runs a search strategy over every book in the store.
+     * @param strategy The search strategy to apply
+     * @param query The search query
+     * @return Matching books
+     */
+    List<Book> search(SearchStrategy strategy, String query);
+}
@@ -0,0 +1,20 @@
+package com.library.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free patron ID allocator for a single process that does not persist anything.
+ * IDs start again at 1 after a restart; use LeasedPatronIdAllocator when that matters.
+ */
+public class InMemoryPatronIdAllocator implements PatronIdAllocator {
+    private final AtomicInteger nextId;
+
+    public InMemoryPatronIdAllocator() {
+        this.nextId = new AtomicInteger(1);
+    }
+
+    @Override
+    public int nextId() {
+        return nextId.getAndIncrement();
+    }
+}
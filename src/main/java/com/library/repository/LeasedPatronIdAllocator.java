@@ -0,0 +1,125 @@
+package com.library.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Restart-safe patron ID allocator that leases blocks of IDs from a file in a shared data directory.
+ *
+ * The lease file holds the first ID no allocator has leased yet. Leasing a block advances it
+ * under an exclusive file lock and forces it to disk before any ID from the block is handed out,
+ * so processes sharing the directory never overlap and a crash can only skip IDs, never reuse them.
+ * Within a process, IDs come from the current block with a single atomic increment;
+ * only the thread that exhausts a block takes a lock to lease the next one.
+ */
+public class LeasedPatronIdAllocator implements PatronIdAllocator {
+    public static final String LEASE_FILE_NAME = "patron-id.lease";
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    // FileLock is held per JVM, so allocators in one process must also take turns in-process
+    private static final ConcurrentHashMap<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path leaseFile;
+    private final int blockSize;
+    private final AtomicReference<Block> currentBlock;
+
+    /**
+     * A leased range of IDs [next, end).
+     */
+    private static final class Block {
+        final AtomicInteger next;
+        final int end;
+
+        Block(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+
+    public LeasedPatronIdAllocator(Path dataDirectory) {
+        this(dataDirectory, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates an allocator backed by the lease file in a data directory.
+     * @param dataDirectory The directory shared by all allocators that must not collide
+     * @param blockSize How many IDs to lease at a time; larger blocks mean fewer file writes
+     *                  but more IDs skipped when a process stops
+     */
+    public LeasedPatronIdAllocator(Path dataDirectory, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        try {
+            Files.createDirectories(dataDirectory);
+            this.leaseFile = dataDirectory.resolve(LEASE_FILE_NAME).toAbsolutePath().normalize();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create data directory " + dataDirectory, e);
+        }
+        this.blockSize = blockSize;
+        this.currentBlock = new AtomicReference<>(new Block(0, 0)); // Empty; first call leases
+    }
+
+    @Override
+    public int nextId() {
+        while (true) {
+            Block block = currentBlock.get();
+            int id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (currentBlock.get() == exhausted) { // Another thread may have refilled already
+            currentBlock.set(leaseBlock());
+        }
+    }
+
+    private Block leaseBlock() {
+        Object processLock = PROCESS_LOCKS.computeIfAbsent(leaseFile, path -> new Object());
+        synchronized (processLock) {
+            try (FileChannel channel = FileChannel.open(leaseFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock(); // Excludes other processes sharing the directory
+                try {
+                    long start = readHighWaterMark(channel);
+                    long end = start + blockSize;
+                    if (end > Integer.MAX_VALUE) {
+                        throw new IllegalStateException("Patron ID space exhausted");
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, end);
+                    channel.write(buffer, 0);
+                    channel.force(true); // Durable before any ID of the block is used
+                    return new Block((int) start, (int) end);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot lease patron IDs from " + leaseFile, e);
+            }
+        }
+    }
+
+    private static long readHighWaterMark(FileChannel channel) throws IOException {
+        if (channel.size() < Long.BYTES) {
+            return 1; // Fresh directory: IDs start at 1
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Keep reading until the full value is in
+        }
+        return buffer.getLong(0);
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.repository;
+
+/**
+ * Hands out patron IDs. Implementations must be safe to call from many threads
+ * and must never return the same ID twice.
+ */
+public interface PatronIdAllocator {
+    /**
+     * Allocates the next unused patron ID.
+     * @return A patron ID that has not been returned before
+     */
+    int nextId();
+}
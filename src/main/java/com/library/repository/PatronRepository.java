@@ -2,49 +2,103 @@ package com.library.repository;
 
 import com.library.model.Patron;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Repository class for managing Patron data.
  * Demonstrates Single Responsibility Principle - only handles data storage/retrieval.
- * Uses Map collection with patronId as key for efficient lookups.
+ * Uses Map collection with patronId as key for efficient lookups, plus secondary
+ * indexes on normalized email, phone number and name that every write keeps in sync.
+ * Email and phone number are unique: a write that would reuse one is rejected.
+ * Lookups never lock; writes are serialized so uniqueness checks cannot race.
  */
 public class PatronRepository {
+    private static final char KEY_SEPARATOR = '\u0000';
+
     private Map<Integer, Patron> patrons; // Key: patronId, Value: Patron
-    private int nextPatronId;
+    private Map<String, Integer> emailIndex; // Key: normalized email, Value: patronId
+    private Map<String, Integer> phoneIndex; // Key: normalized phone number, Value: patronId
+    private NavigableMap<String, Integer> nameIndex; // Key: normalized name + separator + patronId
+    private Map<Integer, IndexedKeys> indexedKeys; // Keys each patron is currently indexed under
+    private PatronIdAllocator idAllocator;
+
+    /**
+     * The normalized keys a patron was indexed under, so a later update can remove them
+     * even if the Patron object was mutated in place before updatePatron was called.
+     */
+    private static final class IndexedKeys {
+        final String email;
+        final String phone;
+        final String name;
+
+        IndexedKeys(Patron patron) {
+            this.email = normalizeEmail(patron.getEmail());
+            this.phone = normalizePhone(patron.getPhoneNumber());
+            this.name = normalizeName(patron.getName()) + KEY_SEPARATOR + patron.getPatronId();
+        }
+    }
 
     public PatronRepository() {
-        this.patrons = new HashMap<>();
-        this.nextPatronId = 1;
+        this(new InMemoryPatronIdAllocator());
+    }
+
+    /**
+     * Creates a repository that draws new patron IDs from the given allocator.
+     * @param idAllocator The patron ID allocator
+     */
+    public PatronRepository(PatronIdAllocator idAllocator) {
+        this.patrons = new ConcurrentHashMap<>();
+        this.emailIndex = new ConcurrentHashMap<>();
+        this.phoneIndex = new ConcurrentHashMap<>();
+        this.nameIndex = new ConcurrentSkipListMap<>();
+        this.indexedKeys = new ConcurrentHashMap<>();
+        this.idAllocator = idAllocator;
     }
 
     /**
      * Adds a new patron to the repository.
      * @param patron The patron to add
-     * @return true if added successfully, false if patron with same ID already exists
+     * @return true if added successfully, false if the ID, email or phone number is already registered
      */
-    public boolean addPatron(Patron patron) {
+    public synchronized boolean addPatron(Patron patron) {
         if (patrons.containsKey(patron.getPatronId())) {
             return false; // Patron with this ID already exists
         }
+        IndexedKeys keys = new IndexedKeys(patron);
+        if (isTakenByOther(emailIndex, keys.email, patron.getPatronId())
+                || isTakenByOther(phoneIndex, keys.phone, patron.getPatronId())) {
+            return false; // Duplicate registration
+        }
         patrons.put(patron.getPatronId(), patron);
+        index(patron.getPatronId(), keys);
         return true;
     }
 
     /**
-     * Updates an existing patron in the repository.
+     * Updates an existing patron in the repository and re-indexes it.
      * @param patronId The ID of the patron to update
      * @param updatedPatron The updated patron object
-     * @return true if updated successfully, false if patron not found
+     * @return true if updated successfully, false if patron not found or the new email
+     *         or phone number belongs to another patron
      */
-    public boolean updatePatron(int patronId, Patron updatedPatron) {
-        if (patrons.containsKey(patronId)) {
-            patrons.put(patronId, updatedPatron);
-            return true;
+    public synchronized boolean updatePatron(int patronId, Patron updatedPatron) {
+        if (!patrons.containsKey(patronId)) {
+            return false;
+        }
+        IndexedKeys keys = new IndexedKeys(updatedPatron);
+        if (isTakenByOther(emailIndex, keys.email, patronId)
+                || isTakenByOther(phoneIndex, keys.phone, patronId)) {
+            return false;
         }
-        return false;
+        unindex(patronId);
+        patrons.put(patronId, updatedPatron);
+        index(patronId, keys);
+        return true;
     }
 
     /**
@@ -56,6 +110,49 @@ public class PatronRepository {
         return patrons.get(patronId);
     }
 
+    /**
+     * Finds a patron by email address, ignoring case and surrounding whitespace.
+     * @param email The email to search for
+     * @return The patron if found, null otherwise
+     */
+    public Patron findByEmail(String email) {
+        String key = normalizeEmail(email);
+        Integer patronId = key != null ? emailIndex.get(key) : null;
+        return patronId != null ? patrons.get(patronId) : null;
+    }
+
+    /**
+     * Finds a patron by phone number, ignoring formatting such as spaces and dashes.
+     * @param phoneNumber The phone number to search for
+     * @return The patron if found, null otherwise
+     */
+    public Patron findByPhoneNumber(String phoneNumber) {
+        String key = normalizePhone(phoneNumber);
+        Integer patronId = key != null ? phoneIndex.get(key) : null;
+        return patronId != null ? patrons.get(patronId) : null;
+    }
+
+    /**
+     * Finds patrons whose name starts with a prefix, ignoring case and extra whitespace.
+     * @param prefix The name prefix
+     * @param limit The maximum number of patrons to return
+     * @return Matching patrons in name order
+     */
+    public List<Patron> findByNamePrefix(String prefix, int limit) {
+        List<Patron> results = new ArrayList<>();
+        String key = normalizeName(prefix);
+        for (Integer patronId : nameIndex.subMap(key, true, key + Character.MAX_VALUE, true).values()) {
+            if (results.size() >= limit) {
+                break;
+            }
+            Patron patron = patrons.get(patronId);
+            if (patron != null) {
+                results.add(patron);
+            }
+        }
+        return results;
+    }
+
     /**
      * Gets all patrons in the repository.
      * @return List of all patrons
@@ -69,7 +166,7 @@ public class PatronRepository {
      * @return The next patron ID
      */
     public int getNextPatronId() {
-        return nextPatronId++;
+        return idAllocator.nextId();
     }
 
     /**
@@ -79,4 +176,65 @@ public class PatronRepository {
     public int getPatronCount() {
         return patrons.size();
     }
+
+    private void index(int patronId, IndexedKeys keys) {
+        if (keys.email != null) {
+            emailIndex.put(keys.email, patronId);
+        }
+        if (keys.phone != null) {
+            phoneIndex.put(keys.phone, patronId);
+        }
+        nameIndex.put(keys.name, patronId);
+        indexedKeys.put(patronId, keys);
+    }
+
+    private void unindex(int patronId) {
+        IndexedKeys keys = indexedKeys.remove(patronId);
+        if (keys == null) {
+            return;
+        }
+        if (keys.email != null) {
+            emailIndex.remove(keys.email, patronId);
+        }
+        if (keys.phone != null) {
+            phoneIndex.remove(keys.phone, patronId);
+        }
+        nameIndex.remove(keys.name);
+    }
+
+    private static boolean isTakenByOther(Map<String, Integer> index, String key, int patronId) {
+        if (key == null) {
+            return false;
+        }
+        Integer owner = index.get(key);
+        return owner != null && owner != patronId;
+    }
+
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (Character.isDigit(c)) {
+                digits.append(c);
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+
+    static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,13 @@
+package com.library.repository;
+
+/**
+ * Outcome of an optimistic (compare-and-swap) update.
+ */
+public enum UpdateResult {
+    /** The new revision was stored. */
+    UPDATED,
+    /** No book with that ISBN exists. */
+    NOT_FOUND,
+    /** The book changed since the expected revision was read; re-read and retry. */
+    CONFLICT
+}
@@ -1,21 +1,33 @@
 package com.library.service;
 
+import com.library.event.EventRingBuffer;
+import com.library.event.EventType;
 import com.library.model.Book;
 import com.library.repository.BookRepository;
+import com.library.repository.UpdateResult;
+import com.library.snapshot.Commit;
+import com.library.snapshot.SnapshotManager;
 import com.library.strategy.SearchStrategy;
 import com.library.util.LoggerUtil;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Service class for book-related business logic.
  * Demonstrates Dependency Inversion Principle - depends on SearchStrategy abstraction.
  * Demonstrates Open/Closed Principle - open for extension (new search strategies) but closed for modification.
+ * Changes to the same ISBN hold the repository's lock for that ISBN until their event is
+ * published; LoanService takes the same lock, so a book's catalog and loan events arrive in
+ * the order the changes were made.
  */
 public class BookService {
     private BookRepository bookRepository;
     private SearchStrategy searchStrategy;
+    private EventRingBuffer eventBuffer;
+    private SnapshotManager snapshotManager;
     private static final Logger logger = LoggerUtil.getLogger();
 
     public BookService(BookRepository bookRepository) {
@@ -30,13 +42,48 @@ public class BookService {
         this.searchStrategy = searchStrategy;
     }
 
+    /**
+     * Sets the ring buffer that domain events are published to.
+     * Publishing is skipped while no buffer is set.
+     * @param eventBuffer The event ring buffer
+     */
+    public void setEventBuffer(EventRingBuffer eventBuffer) {
+        this.eventBuffer = eventBuffer;
+    }
+
+    /**
+     * Sets the snapshot manager that records every change for point-in-time reads.
+     * @param snapshotManager The snapshot manager
+     */
+    public void setSnapshotManager(SnapshotManager snapshotManager) {
+        this.snapshotManager = snapshotManager;
+    }
+
+    private Commit beginCommit(Object key) {
+        return snapshotManager != null ? snapshotManager.beginCommit(key) : Commit.NONE;
+    }
+
     /**
      * Adds a new book to the library.
      * @param book The book to add
      * @return true if added successfully, false otherwise
      */
     public boolean addBook(Book book) {
-        boolean result = bookRepository.addBook(book);
+        boolean result;
+        ReentrantLock isbnLock = bookRepository.lockFor(book.getIsbn());
+        isbnLock.lock();
+        try (Commit commit = beginCommit(book.getIsbn())) {
+            result = bookRepository.addBook(book);
+            if (result) {
+                Book stored = bookRepository.findByISBN(book.getIsbn()); // A re-added book gets a new version
+                commit.putBook(stored);
+                if (eventBuffer != null) {
+                    eventBuffer.publishBookEvent(EventType.BOOK_ADDED, stored);
+                }
+            }
+        } finally {
+            isbnLock.unlock();
+        }
         if (result) {
             logger.log(Level.INFO, "Book added successfully: " + book.getTitle() + " (ISBN: " + book.getIsbn() + ")");
         } else {
@@ -51,7 +98,20 @@ public class BookService {
      * @return true if removed successfully, false otherwise
      */
     public boolean removeBook(String isbn) {
-        boolean result = bookRepository.removeBook(isbn);
+        boolean result;
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            result = bookRepository.removeBook(isbn);
+            if (result) {
+                commit.removeBook(isbn);
+                if (eventBuffer != null) {
+                    eventBuffer.publishBookRemoved(isbn);
+                }
+            }
+        } finally {
+            isbnLock.unlock();
+        }
         if (result) {
             logger.log(Level.INFO, "Book removed successfully: ISBN " + isbn);
         } else {
@@ -61,21 +121,95 @@ public class BookService {
     }
 
     /**
-     * Updates an existing book in the library.
+     * Updates an existing book in the library, overwriting whatever revision is current.
      * @param isbn The ISBN of the book to update
      * @param updatedBook The updated book object
      * @return true if updated successfully, false otherwise
      */
     public boolean updateBook(String isbn, Book updatedBook) {
-        boolean result = bookRepository.updateBook(isbn, updatedBook);
-        if (result) {
+        Book stored;
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            stored = bookRepository.updateBook(isbn, updatedBook);
+            if (stored != null) {
+                commit.putBook(stored);
+                if (eventBuffer != null) {
+                    eventBuffer.publishBookEvent(EventType.BOOK_UPDATED, stored);
+                }
+            }
+        } finally {
+            isbnLock.unlock();
+        }
+        if (stored != null) {
             logger.log(Level.INFO, "Book updated successfully: ISBN " + isbn);
         } else {
             logger.log(Level.WARNING, "Failed to update book: Book with ISBN " + isbn + " not found");
         }
+        return stored != null;
+    }
+
+    /**
+     * Updates a book only if nobody else changed it since the given revision was read.
+     * @param expected The revision the edit is based on
+     * @param updatedBook The edited book, e.g. {@code expected.withTitle(...)}
+     * @return UPDATED, NOT_FOUND, or CONFLICT if the caller should re-read and retry
+     */
+    public UpdateResult compareAndUpdateBook(Book expected, Book updatedBook) {
+        String isbn = expected.getIsbn();
+        UpdateResult result;
+        Book stored;
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            stored = bookRepository.compareAndSet(expected, updatedBook);
+            if (stored != null) {
+                result = UpdateResult.UPDATED;
+                commit.putBook(stored);
+                if (eventBuffer != null) {
+                    eventBuffer.publishBookEvent(EventType.BOOK_UPDATED, stored);
+                }
+            } else {
+                result = bookRepository.findByISBN(isbn) == null ? UpdateResult.NOT_FOUND : UpdateResult.CONFLICT;
+            }
+        } finally {
+            isbnLock.unlock();
+        }
+        if (result == UpdateResult.UPDATED) {
+            logger.log(Level.INFO, "Book updated successfully: ISBN " + isbn + " (version " + stored.getVersion() + ")");
+        } else if (result == UpdateResult.CONFLICT) {
+            logger.log(Level.WARNING, "Failed to update book: ISBN " + isbn + " changed since version " + expected.getVersion());
+        } else {
+            logger.log(Level.WARNING, "Failed to update book: Book with ISBN " + isbn + " not found");
+        }
         return result;
     }
 
+    /**
+     * Installs a revision made on another instance, keeping its version number.
+     * Revisions no newer than the stored one are ignored, so replaying them is harmless.
+     * @param revision The revision to install
+     * @return true if the catalog changed, false if it already had this revision or a newer one
+     */
+    public boolean applyRevision(Book revision) {
+        ReentrantLock isbnLock = bookRepository.lockFor(revision.getIsbn());
+        isbnLock.lock();
+        try (Commit commit = beginCommit(revision.getIsbn())) {
+            boolean added = bookRepository.findByISBN(revision.getIsbn()) == null;
+            if (!bookRepository.applyRevision(revision)) {
+                return false;
+            }
+            commit.putBook(revision);
+            if (eventBuffer != null) {
+                eventBuffer.publishBookEvent(added ? EventType.BOOK_ADDED : EventType.BOOK_UPDATED, revision);
+            }
+        } finally {
+            isbnLock.unlock();
+        }
+        logger.log(Level.INFO, "Book revision applied: ISBN " + revision.getIsbn() + " (version " + revision.getVersion() + ")");
+        return true;
+    }
+
     /**
      * Searches for books using the current search strategy.
      * @param query The search query
@@ -87,8 +221,7 @@ public class BookService {
             return List.of();
         }
         
-        List<Book> allBooks = bookRepository.getAllBooks();
-        List<Book> results = searchStrategy.search(allBooks, query);
+        List<Book> results = bookRepository.search(searchStrategy, query);
         logger.log(Level.INFO, "Search performed with query: " + query + ", found " + results.size() + " results");
         return results;
     }
@@ -109,4 +242,12 @@ public class BookService {
     public List<Book> getAllBooks() {
         return bookRepository.getAllBooks();
     }
+
+    /**
+     * Lazily streams all books without putting the whole catalog on the heap.
+     * @return Stream of books
+     */
+    public Stream<Book> books() {
+        return bookRepository.books();
+    }
 }
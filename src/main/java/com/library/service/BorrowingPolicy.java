@@ -0,0 +1,90 @@
+package com.library.service;
+
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.model.PatronCategory;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Maximum number of items a patron may hold at once, and for how long, per patron category.
+ * Limits can be changed while the library is running; reads are lock-free.
+ */
+public class BorrowingPolicy {
+    public static final int DEFAULT_GENERAL_LIMIT = 5;
+    public static final int DEFAULT_STUDENT_LIMIT = 10;
+    public static final int DEFAULT_STAFF_LIMIT = 15;
+    public static final int DEFAULT_FACULTY_LIMIT = 25;
+    public static final int DEFAULT_LOAN_PERIOD_DAYS = 21;
+    public static final int DEFAULT_FACULTY_LOAN_PERIOD_DAYS = 90;
+
+    private final AtomicIntegerArray limits; // Indexed by PatronCategory ordinal
+    private final AtomicIntegerArray loanPeriods; // Days, indexed by PatronCategory ordinal
+
+    public BorrowingPolicy() {
+        this.limits = new AtomicIntegerArray(PatronCategory.values().length);
+        setLimit(PatronCategory.GENERAL, DEFAULT_GENERAL_LIMIT);
+        setLimit(PatronCategory.STUDENT, DEFAULT_STUDENT_LIMIT);
+        setLimit(PatronCategory.STAFF, DEFAULT_STAFF_LIMIT);
+        setLimit(PatronCategory.FACULTY, DEFAULT_FACULTY_LIMIT);
+        this.loanPeriods = new AtomicIntegerArray(PatronCategory.values().length);
+        for (PatronCategory category : PatronCategory.values()) {
+            setLoanPeriodDays(category, DEFAULT_LOAN_PERIOD_DAYS);
+        }
+        setLoanPeriodDays(PatronCategory.FACULTY, DEFAULT_FACULTY_LOAN_PERIOD_DAYS);
+    }
+
+    /**
+     * Sets the maximum number of open loans for a category.
+     * Patrons already above a lowered limit keep their loans but cannot borrow more.
+     * @param category The patron category
+     * @param maxOpenLoans The limit, at least 0
+     */
+    public void setLimit(PatronCategory category, int maxOpenLoans) {
+        if (maxOpenLoans < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        limits.set(category.ordinal(), maxOpenLoans);
+    }
+
+    /**
+     * Gets the maximum number of open loans for a category.
+     * @param category The patron category
+     * @return The limit
+     */
+    public int getLimit(PatronCategory category) {
+        return limits.get(category.ordinal());
+    }
+
+    /**
+     * Sets how many days a loan runs for a category.
+     * @param category The patron category
+     * @param days The loan period, at least 1
+     */
+    public void setLoanPeriodDays(PatronCategory category, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Loan period must be at least one day");
+        }
+        loanPeriods.set(category.ordinal(), days);
+    }
+
+    /**
+     * Gets how many days a loan runs for a category.
+     * @param category The patron category
+     * @return The loan period in days
+     */
+    public int getLoanPeriodDays(PatronCategory category) {
+        return loanPeriods.get(category.ordinal());
+    }
+
+    /**
+     * Gets the date a loan is due back, under the current loan periods.
+     * @param loan The loan
+     * @return The due date
+     */
+    public LocalDate getDueDate(Loan loan) {
+        Patron patron = loan.getPatron();
+        PatronCategory category = patron.getCategory() != null ? patron.getCategory() : PatronCategory.GENERAL;
+        return loan.getCheckoutDate().plusDays(getLoanPeriodDays(category));
+    }
+}
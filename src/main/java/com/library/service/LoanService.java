@@ -1,31 +1,89 @@
 package com.library.service;
 
+import com.library.event.EventRingBuffer;
+import com.library.event.EventType;
 import com.library.model.Book;
 import com.library.model.Loan;
 import com.library.model.Patron;
+import com.library.model.PatronCategory;
 import com.library.repository.BookRepository;
 import com.library.repository.PatronRepository;
+import com.library.snapshot.Commit;
+import com.library.snapshot.SnapshotManager;
 import com.library.util.LoggerUtil;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing lending operations and inventory.
  * Handles checkout, return, and inventory management.
+ * Keeps a running count of open loans per patron, so borrowing limits are enforced
+ * in constant time without looking at borrowing history.
+ * Checkouts and returns of the same book hold the book repository's lock for that ISBN,
+ * the one BookService also takes, from the state change through publishing the event, so
+ * consumers see a book's loans and catalog changes in the order they happened.
  */
 public class LoanService {
     private BookRepository bookRepository;
     private PatronRepository patronRepository;
-    private List<Loan> activeLoans;
+    private Map<String, Loan> activeLoans; // Key: ISBN, Value: open loan of that book
+    private Map<Integer, AtomicInteger> openLoanCounts; // Key: patronId, Value: loans not yet returned
+    private final AtomicLong lastLoanId;
+    private BorrowingPolicy borrowingPolicy;
+    private EventRingBuffer eventBuffer;
+    private SnapshotManager snapshotManager;
     private static final Logger logger = LoggerUtil.getLogger();
 
     public LoanService(BookRepository bookRepository, PatronRepository patronRepository) {
         this.bookRepository = bookRepository;
         this.patronRepository = patronRepository;
-        this.activeLoans = new ArrayList<>();
+        this.activeLoans = new ConcurrentHashMap<>();
+        this.openLoanCounts = new ConcurrentHashMap<>();
+        this.lastLoanId = new AtomicLong();
+        this.borrowingPolicy = new BorrowingPolicy();
+    }
+
+    /**
+     * Sets the policy that limits how many items a patron may hold.
+     * @param borrowingPolicy The borrowing policy
+     */
+    public void setBorrowingPolicy(BorrowingPolicy borrowingPolicy) {
+        this.borrowingPolicy = borrowingPolicy;
+    }
+
+    public BorrowingPolicy getBorrowingPolicy() {
+        return borrowingPolicy;
+    }
+
+    /**
+     * Sets the ring buffer that domain events are published to.
+     * Publishing is skipped while no buffer is set.
+     * @param eventBuffer The event ring buffer
+     */
+    public void setEventBuffer(EventRingBuffer eventBuffer) {
+        this.eventBuffer = eventBuffer;
+    }
+
+    /**
+     * Sets the snapshot manager that records every change for point-in-time reads.
+     * @param snapshotManager The snapshot manager
+     */
+    public void setSnapshotManager(SnapshotManager snapshotManager) {
+        this.snapshotManager = snapshotManager;
+    }
+
+    private Commit beginCommit(Object key) {
+        return snapshotManager != null ? snapshotManager.beginCommit(key) : Commit.NONE;
     }
 
     /**
@@ -48,18 +106,41 @@ public class LoanService {
             return false;
         }
 
-        if (!book.isAvailable()) {
-            logger.log(Level.WARNING, "Checkout failed: Book " + book.getTitle() + " is not available");
+        AtomicInteger openLoans = openLoanCounts.computeIfAbsent(patronId, id -> new AtomicInteger());
+        int limit = borrowingPolicy.getLimit(categoryOf(patron));
+        if (!reserveLoanSlot(openLoans, limit)) {
+            logger.log(Level.WARNING, "Checkout failed: Patron " + patron.getName() + " already has the maximum of " + limit + " items");
             return false;
         }
 
-        // Create loan record
-        Loan loan = new Loan(book, patron, LocalDate.now());
-        activeLoans.add(loan);
-        patron.addToBorrowingHistory(loan);
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            // Look again under the lock BookService also takes, so a book removed meanwhile is not lent
+            book = bookRepository.findByISBN(isbn);
+            if (book == null) {
+                openLoans.decrementAndGet();
+                logger.log(Level.WARNING, "Checkout failed: Book with ISBN " + isbn + " not found");
+                return false;
+            }
+            // Claiming the ISBN is atomic, so two desks can never lend the same copy
+            LocalDate checkoutDate = LocalDate.now();
+            Loan loan = new Loan(lastLoanId.incrementAndGet(), book, patron, checkoutDate);
+            if (activeLoans.putIfAbsent(isbn, loan) != null) {
+                openLoans.decrementAndGet(); // Give the reserved slot back
+                logger.log(Level.WARNING, "Checkout failed: Book " + book.getTitle() + " is not available");
+                return false;
+            }
+            patron.addToBorrowingHistory(loan);
 
-        // Update book availability
-        book.setAvailable(false);
+            // The open loan is what marks the book as unavailable
+            commit.putLoan(loan);
+            if (eventBuffer != null) {
+                eventBuffer.publishLoanEvent(EventType.BOOK_CHECKED_OUT, book, patron, loan.getLoanId(), checkoutDate);
+            }
+        } finally {
+            isbnLock.unlock();
+        }
 
         logger.log(Level.INFO, "Book checked out successfully: " + book.getTitle() + " to " + patron.getName());
         return true;
@@ -85,47 +166,220 @@ public class LoanService {
             return false;
         }
 
-        // Find the active loan
-        Loan loanToReturn = null;
-        for (Loan loan : activeLoans) {
-            if (loan.getBook().getIsbn().equals(isbn) && 
-                loan.getPatron().getPatronId() == patronId && 
-                !loan.isReturned()) {
-                loanToReturn = loan;
-                break;
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            // Find the active loan
+            Loan loanToReturn = activeLoans.get(isbn);
+            if (loanToReturn == null || loanToReturn.getPatron().getPatronId() != patronId) {
+                logger.log(Level.WARNING, "Return failed: No active loan found for book " + isbn + " and patron " + patronId);
+                return false;
+            }
+
+            // Update loan record
+            LocalDate returnDate = LocalDate.now();
+            loanToReturn.setReturnDate(returnDate);
+
+            // Releasing the ISBN makes the book available to the next checkout
+            activeLoans.remove(isbn);
+
+            commit.removeLoan(isbn);
+            if (eventBuffer != null) {
+                eventBuffer.publishLoanEvent(EventType.BOOK_RETURNED, book, patron, loanToReturn.getLoanId(),
+                        returnDate);
             }
+            // Only now can the freed slot go to another checkout, whose event then comes after this one
+            openLoanCounts.get(patronId).decrementAndGet();
+        } finally {
+            isbnLock.unlock();
         }
 
-        if (loanToReturn == null) {
-            logger.log(Level.WARNING, "Return failed: No active loan found for book " + isbn + " and patron " + patronId);
+        logger.log(Level.INFO, "Book returned successfully: " + book.getTitle() + " from " + patron.getName());
+        return true;
+    }
+
+    /**
+     * Installs a loan made elsewhere, e.g. on a replication leader, with its original ID and
+     * date. The borrowing policy is not checked: the loan was already allowed where it was made.
+     * @param loanId The loan's ID on the library that made it
+     * @param isbn The ISBN of the book lent
+     * @param patronId The ID of the patron
+     * @param checkoutDate The day the loan started
+     * @return true if installed, false if the book or patron is not found or the book is on loan
+     */
+    public boolean applyCheckout(long loanId, String isbn, int patronId, LocalDate checkoutDate) {
+        Book book = bookRepository.findByISBN(isbn);
+        Patron patron = patronRepository.findById(patronId);
+        if (book == null || patron == null) {
+            logger.log(Level.WARNING, "Replicated checkout of loan " + loanId + " skipped: book " + isbn
+                    + " or patron " + patronId + " not found");
             return false;
         }
 
-        // Update loan record
-        loanToReturn.setReturnDate(LocalDate.now());
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            book = bookRepository.findByISBN(isbn); // Not removed while we waited for the lock
+            if (book == null) {
+                logger.log(Level.WARNING, "Replicated checkout of loan " + loanId + " skipped: book " + isbn
+                        + " not found");
+                return false;
+            }
+            Loan loan = new Loan(loanId, book, patron, checkoutDate);
+            if (activeLoans.putIfAbsent(isbn, loan) != null) {
+                logger.log(Level.WARNING, "Replicated checkout of loan " + loanId + " skipped: book " + isbn
+                        + " is on loan");
+                return false;
+            }
+            lastLoanId.accumulateAndGet(loanId, Math::max); // Loans made here after a failover get new IDs
+            openLoanCounts.computeIfAbsent(patronId, id -> new AtomicInteger()).incrementAndGet();
+            patron.addToBorrowingHistory(loan);
+
+            commit.putLoan(loan);
+            if (eventBuffer != null) {
+                eventBuffer.publishLoanEvent(EventType.BOOK_CHECKED_OUT, book, patron, loanId, checkoutDate);
+            }
+        } finally {
+            isbnLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Closes an open loan that was returned elsewhere, e.g. on a replication leader.
+     * @param loanId The ID of the loan
+     * @param isbn The ISBN of the book lent
+     * @param returnDate The day the book came back
+     * @return true if closed, false if that loan is not the book's open loan
+     */
+    public boolean applyReturn(long loanId, String isbn, LocalDate returnDate) {
+        ReentrantLock isbnLock = bookRepository.lockFor(isbn);
+        isbnLock.lock();
+        try (Commit commit = beginCommit(isbn)) {
+            Loan loan = activeLoans.get(isbn);
+            if (loan == null || loan.getLoanId() != loanId) {
+                return false;
+            }
+            loan.setReturnDate(returnDate);
+            activeLoans.remove(isbn);
 
-        // Update book availability
-        book.setAvailable(true);
+            commit.removeLoan(isbn);
+            if (eventBuffer != null) {
+                eventBuffer.publishLoanEvent(EventType.BOOK_RETURNED, loan.getBook(), loan.getPatron(), loanId,
+                        returnDate);
+            }
+            openLoanCounts.get(loan.getPatron().getPatronId()).decrementAndGet();
+        } finally {
+            isbnLock.unlock();
+        }
+        return true;
+    }
 
-        logger.log(Level.INFO, "Book returned successfully: " + book.getTitle() + " from " + patron.getName());
+    /**
+     * Adds a loan made and returned elsewhere to its patron's borrowing history, e.g. when a
+     * replica syncs. Nothing is published: the loan never changed this library's circulation.
+     * @param loan The returned loan, with its original ID
+     * @return true if recorded, false if its patron is not found
+     */
+    public boolean applyReturnedLoan(Loan loan) {
+        Patron patron = patronRepository.findById(loan.getPatron().getPatronId());
+        if (patron == null) {
+            return false;
+        }
+        lastLoanId.accumulateAndGet(loan.getLoanId(), Math::max);
+        patron.addToBorrowingHistory(loan);
         return true;
     }
 
+    /**
+     * Gets how many items a patron currently has out, in constant time.
+     * @param patronId The ID of the patron
+     * @return The number of open loans
+     */
+    public int getOpenLoanCount(int patronId) {
+        AtomicInteger openLoans = openLoanCounts.get(patronId);
+        return openLoans != null ? openLoans.get() : 0;
+    }
+
+    /**
+     * Gets how many more items a patron may borrow under the current policy.
+     * @param patronId The ID of the patron
+     * @return The remaining allowance, or 0 if the patron is not found
+     */
+    public int getRemainingAllowance(int patronId) {
+        Patron patron = patronRepository.findById(patronId);
+        if (patron == null) {
+            return 0;
+        }
+        return Math.max(0, borrowingPolicy.getLimit(categoryOf(patron)) - getOpenLoanCount(patronId));
+    }
+
+    /**
+     * Takes one of the patron's loan slots if the limit allows it.
+     * Check and increment happen in one compare-and-set, so concurrent checkouts cannot overshoot.
+     */
+    private static boolean reserveLoanSlot(AtomicInteger openLoans, int limit) {
+        while (true) {
+            int current = openLoans.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (openLoans.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static PatronCategory categoryOf(Patron patron) {
+        return patron.getCategory() != null ? patron.getCategory() : PatronCategory.GENERAL;
+    }
+
+    /**
+     * Gets the lock that orders every change to a book and its loans, shared with BookService.
+     * Holding it gives one consistent view of the book, its open loan and {@link #getLastLoanId()},
+     * e.g. for a replication sync.
+     * @param isbn The ISBN of the book
+     * @return The ISBN's lock
+     */
+    public ReentrantLock lockFor(String isbn) {
+        return bookRepository.lockFor(isbn);
+    }
+
+    /**
+     * Gets a book's open loan.
+     * @param isbn The ISBN of the book
+     * @return The open loan, or null if the book is on the shelf
+     */
+    public Loan getActiveLoan(String isbn) {
+        return activeLoans.get(isbn);
+    }
+
+    /**
+     * Gets the ID of the most recent loan. IDs are issued under the book's lock, so while that lock
+     * is held every later loan of the book will get a higher ID.
+     * @return The last loan ID issued or installed, 0 if none
+     */
+    public long getLastLoanId() {
+        return lastLoanId.get();
+    }
+
+    /**
+     * Checks whether a book is on the shelf, i.e. has no open loan.
+     * @param isbn The ISBN of the book
+     * @return true if the book is not lent out
+     */
+    public boolean isAvailable(String isbn) {
+        return !activeLoans.containsKey(isbn);
+    }
+
     /**
      * Gets all available books in the library.
      * @return List of available books
      */
     public List<Book> getAvailableBooks() {
-        List<Book> allBooks = bookRepository.getAllBooks();
-        List<Book> availableBooks = new ArrayList<>();
-        
-        for (Book book : allBooks) {
-            if (book.isAvailable()) {
-                availableBooks.add(book);
-            }
-        }
-        
-        return availableBooks;
+        return bookRepository.books()
+                .filter(book -> isAvailable(book.getIsbn()))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -133,16 +387,9 @@ public class LoanService {
      * @return List of borrowed books
      */
     public List<Book> getBorrowedBooks() {
-        List<Book> allBooks = bookRepository.getAllBooks();
-        List<Book> borrowedBooks = new ArrayList<>();
-        
-        for (Book book : allBooks) {
-            if (!book.isAvailable()) {
-                borrowedBooks.add(book);
-            }
-        }
-        
-        return borrowedBooks;
+        return bookRepository.books()
+                .filter(book -> !isAvailable(book.getIsbn()))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -150,12 +397,15 @@ public class LoanService {
      * @return List of active (not yet returned) loans
      */
     public List<Loan> getActiveLoans() {
-        List<Loan> active = new ArrayList<>();
-        for (Loan loan : activeLoans) {
-            if (!loan.isReturned()) {
-                active.add(loan);
-            }
-        }
-        return active;
+        return new ArrayList<>(activeLoans.values());
+    }
+
+    /**
+     * Lazily streams the active loans without copying them into a list first.
+     * Loans made or returned while the stream is consumed may or may not be included.
+     * @return Stream of active (not yet returned) loans
+     */
+    public Stream<Loan> activeLoans() {
+        return activeLoans.values().stream();
     }
 }
@@ -1,23 +1,57 @@
 package com.library.service;
 
+import com.library.event.EventRingBuffer;
+import com.library.event.EventType;
 import com.library.model.Loan;
 import com.library.model.Patron;
 import com.library.repository.PatronRepository;
+import com.library.snapshot.Commit;
+import com.library.snapshot.SnapshotManager;
 import com.library.util.LoggerUtil;
+import com.library.util.StripedLock;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Service class for patron-related business logic.
  * Demonstrates Single Responsibility Principle - handles only patron operations.
+ * Changes to the same patron hold that patron's lock until their event is published,
+ * so events about one patron arrive in the order they happened.
  */
 public class PatronService {
     private PatronRepository patronRepository;
+    private EventRingBuffer eventBuffer;
+    private SnapshotManager snapshotManager;
+    private final StripedLock patronLocks;
+    private static final int LOCK_STRIPES = 256;
     private static final Logger logger = LoggerUtil.getLogger();
 
     public PatronService(PatronRepository patronRepository) {
         this.patronRepository = patronRepository;
+        this.patronLocks = new StripedLock(LOCK_STRIPES);
+    }
+
+    /**
+     * Sets the ring buffer that domain events are published to.
+     * Publishing is skipped while no buffer is set.
+     * @param eventBuffer The event ring buffer
+     */
+    public void setEventBuffer(EventRingBuffer eventBuffer) {
+        this.eventBuffer = eventBuffer;
+    }
+
+    /**
+     * Sets the snapshot manager that records every change for point-in-time reads.
+     * @param snapshotManager The snapshot manager
+     */
+    public void setSnapshotManager(SnapshotManager snapshotManager) {
+        this.snapshotManager = snapshotManager;
+    }
+
+    private Commit beginCommit(Object key) {
+        return snapshotManager != null ? snapshotManager.beginCommit(key) : Commit.NONE;
     }
 
     /**
@@ -26,11 +60,24 @@ public class PatronService {
      * @return true if added successfully, false otherwise
      */
     public boolean addPatron(Patron patron) {
-        boolean result = patronRepository.addPatron(patron);
+        boolean result;
+        ReentrantLock patronLock = patronLocks.forKey(patron.getPatronId());
+        patronLock.lock();
+        try (Commit commit = beginCommit(patron.getPatronId())) {
+            result = patronRepository.addPatron(patron);
+            if (result) {
+                commit.putPatron(patron);
+                if (eventBuffer != null) {
+                    eventBuffer.publishPatronEvent(EventType.PATRON_ADDED, patron);
+                }
+            }
+        } finally {
+            patronLock.unlock();
+        }
         if (result) {
             logger.log(Level.INFO, "Patron added successfully: " + patron.getName() + " (ID: " + patron.getPatronId() + ")");
         } else {
-            logger.log(Level.WARNING, "Failed to add patron: Patron with ID " + patron.getPatronId() + " already exists");
+            logger.log(Level.WARNING, "Failed to add patron: " + describeConflict(patron.getPatronId(), patron));
         }
         return result;
     }
@@ -42,11 +89,24 @@ public class PatronService {
      * @return true if updated successfully, false otherwise
      */
     public boolean updatePatron(int patronId, Patron updatedPatron) {
-        boolean result = patronRepository.updatePatron(patronId, updatedPatron);
+        boolean result;
+        ReentrantLock patronLock = patronLocks.forKey(patronId);
+        patronLock.lock();
+        try (Commit commit = beginCommit(patronId)) {
+            result = patronRepository.updatePatron(patronId, updatedPatron);
+            if (result) {
+                commit.putPatron(updatedPatron);
+                if (eventBuffer != null) {
+                    eventBuffer.publishPatronEvent(EventType.PATRON_UPDATED, updatedPatron);
+                }
+            }
+        } finally {
+            patronLock.unlock();
+        }
         if (result) {
             logger.log(Level.INFO, "Patron updated successfully: ID " + patronId);
         } else {
-            logger.log(Level.WARNING, "Failed to update patron: Patron with ID " + patronId + " not found");
+            logger.log(Level.WARNING, "Failed to update patron: " + describeConflict(patronId, updatedPatron));
         }
         return result;
     }
@@ -60,6 +120,34 @@ public class PatronService {
         return patronRepository.findById(patronId);
     }
 
+    /**
+     * Finds a patron by email address.
+     * @param email The email to search for
+     * @return The patron if found, null otherwise
+     */
+    public Patron findPatronByEmail(String email) {
+        return patronRepository.findByEmail(email);
+    }
+
+    /**
+     * Finds a patron by phone number.
+     * @param phoneNumber The phone number to search for
+     * @return The patron if found, null otherwise
+     */
+    public Patron findPatronByPhoneNumber(String phoneNumber) {
+        return patronRepository.findByPhoneNumber(phoneNumber);
+    }
+
+    /**
+     * Finds patrons whose name starts with the given prefix.
+     * @param prefix The name prefix
+     * @param limit The maximum number of patrons to return
+     * @return List of matching patrons
+     */
+    public List<Patron> searchPatronsByName(String prefix, int limit) {
+        return patronRepository.findByNamePrefix(prefix, limit);
+    }
+
     /**
      * Gets the borrowing history of a patron.
      * @param patronId The ID of the patron
@@ -84,6 +172,21 @@ public class PatronService {
         return patronRepository.getAllPatrons();
     }
 
+    private String describeConflict(int patronId, Patron patron) {
+        Patron byEmail = patronRepository.findByEmail(patron.getEmail());
+        if (byEmail != null && byEmail.getPatronId() != patronId) {
+            return "Email " + patron.getEmail() + " is already registered to patron ID " + byEmail.getPatronId();
+        }
+        Patron byPhone = patronRepository.findByPhoneNumber(patron.getPhoneNumber());
+        if (byPhone != null && byPhone.getPatronId() != patronId) {
+            return "Phone number " + patron.getPhoneNumber() + " is already registered to patron ID " + byPhone.getPatronId();
+        }
+        Patron existing = patronRepository.findById(patronId);
+        return existing != null
+                ? "Patron with ID " + patronId + " already exists"
+                : "Patron with ID " + patronId + " not found";
+    }
+
     /**
      * Gets the next available patron ID.
      * @return The next patron ID
@@ -0,0 +1,65 @@
+package com.library.simulation;
+
+/**
+ * Per-operation counters collected by one worker, merged across workers for the report.
+ * Not thread-safe; each worker owns its own instances.
+ */
+class OperationStats {
+    private final LatencyHistogram latencies;
+    private long failures;
+    private long skips;
+    private long allocatedBytes;
+
+    OperationStats() {
+        this.latencies = new LatencyHistogram();
+    }
+
+    /**
+     * Records one completed operation.
+     * @param nanos How long it took
+     * @param succeeded false if it could not be carried out (book not available, loan already returned)
+     * @param allocated Bytes allocated by the worker thread during the operation, or 0 if unknown
+     */
+    void record(long nanos, boolean succeeded, long allocated) {
+        latencies.record(nanos);
+        if (!succeeded) {
+            failures++;
+        }
+        allocatedBytes += allocated;
+    }
+
+    /**
+     * Records an operation that was picked but had nothing to act on, such as a return with no
+     * open loan. It is neither timed nor counted as a failure.
+     */
+    void recordSkip() {
+        skips++;
+    }
+
+    void merge(OperationStats other) {
+        latencies.merge(other.latencies);
+        failures += other.failures;
+        skips += other.skips;
+        allocatedBytes += other.allocatedBytes;
+    }
+
+    LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    long getFailures() {
+        return failures;
+    }
+
+    long getSkips() {
+        return skips;
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
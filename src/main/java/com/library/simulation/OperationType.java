@@ -0,0 +1,11 @@
+package com.library.simulation;
+
+/**
+ * The operations the workload simulator replays.
+ */
+public enum OperationType {
+    SEARCH,
+    CHECKOUT,
+    RETURN,
+    REGISTER
+}
@@ -0,0 +1,176 @@
+package com.library.simulation;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings for a workload simulation run, parsed from {@code --name=value} arguments.
+ *
+ * Options:
+ *   --books=N        catalog size (default 1000000)
+ *   --patrons=N      registered patrons (default 200000)
+ *   --threads=N      concurrent workers (default: available processors)
+ *   --duration=S     measured run time in seconds (default 30)
+ *   --warmup=S       unmeasured warm-up time in seconds (default 5)
+ *   --zipf=X         popularity skew of books and authors (default 1.0)
+ *   --shards=N       BookRepository shard count (default: available processors)
+ *   --disk-cache=N   keep the catalog in a temporary disk store with N books cached on the heap
+ *   --mix=a:w,...    operation weights (default search:30,checkout:35,return:30,register:5)
+ *   --seed=N         random seed (default 42)
+ *   --snapshots      record MVCC snapshots on every write
+ *   --events         publish domain events to a ring buffer with one draining consumer
+ */
+public class SimulationConfig {
+    private int bookCount = 1_000_000;
+    private int patronCount = 200_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private double zipfExponent = 1.0;
+    private int shardCount = Runtime.getRuntime().availableProcessors();
+    private int diskCacheSize; // 0 = in-memory shards
+    private Map<OperationType, Integer> mix = defaultMix();
+    private long seed = 42;
+    private boolean snapshotsEnabled;
+    private boolean eventsEnabled;
+
+    /**
+     * Parses command-line options.
+     * @param args Options of the form --name=value
+     * @return The parsed configuration
+     */
+    public static SimulationConfig fromArgs(String[] args) {
+        SimulationConfig config = new SimulationConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unrecognized argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (name) {
+                case "books": config.bookCount = positive(name, value); break;
+                case "patrons": config.patronCount = positive(name, value); break;
+                case "threads": config.threads = positive(name, value); break;
+                case "duration": config.durationSeconds = positive(name, value); break;
+                case "warmup": config.warmupSeconds = Integer.parseInt(value); break;
+                case "zipf": config.zipfExponent = Double.parseDouble(value); break;
+                case "shards": config.shardCount = positive(name, value); break;
+                case "disk-cache": config.diskCacheSize = positive(name, value); break;
+                case "mix": config.mix = parseMix(value); break;
+                case "seed": config.seed = Long.parseLong(value); break;
+                case "snapshots": config.snapshotsEnabled = true; break;
+                case "events": config.eventsEnabled = true; break;
+                default: throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        return config;
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed < 1) {
+            throw new IllegalArgumentException("--" + name + " must be at least 1");
+        }
+        return parsed;
+    }
+
+    private static Map<OperationType, Integer> defaultMix() {
+        Map<OperationType, Integer> mix = new EnumMap<>(OperationType.class);
+        mix.put(OperationType.SEARCH, 30);
+        mix.put(OperationType.CHECKOUT, 35);
+        mix.put(OperationType.RETURN, 30);
+        mix.put(OperationType.REGISTER, 5);
+        return mix;
+    }
+
+    private static Map<OperationType, Integer> parseMix(String value) {
+        Map<OperationType, Integer> mix = new EnumMap<>(OperationType.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like search:30, got " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weights must not be negative, got " + part);
+            }
+            mix.put(OperationType.valueOf(pair[0].trim().toUpperCase()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+        return mix;
+    }
+
+    // Getters
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public int getPatronCount() {
+        return patronCount;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public boolean isDiskStoreEnabled() {
+        return diskCacheSize > 0;
+    }
+
+    public int getDiskCacheSize() {
+        return diskCacheSize;
+    }
+
+    public Map<OperationType, Integer> getMix() {
+        return mix;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isSnapshotsEnabled() {
+        return snapshotsEnabled;
+    }
+
+    public boolean isEventsEnabled() {
+        return eventsEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationConfig{" +
+                "books=" + bookCount +
+                ", patrons=" + patronCount +
+                ", threads=" + threads +
+                ", duration=" + durationSeconds + "s" +
+                ", warmup=" + warmupSeconds + "s" +
+                ", zipf=" + zipfExponent +
+                ", shards=" + shardCount +
+                ", diskCache=" + diskCacheSize +
+                ", mix=" + mix +
+                ", seed=" + seed +
+                ", snapshots=" + snapshotsEnabled +
+                ", events=" + eventsEnabled +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.library.simulation;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Results of a simulation run: throughput and latency percentiles per operation type,
+ * plus heap and garbage-collection figures for the measured phase.
+ *
+ * Allocation is measured per operation on the worker thread. GC time cannot be attributed
+ * to individual operations, so the per-operation GC figure is the run's total GC time
+ * split in proportion to each operation type's share of allocated bytes.
+ */
+public class SimulationReport {
+    private final SimulationConfig config;
+    private final Map<OperationType, OperationStats> stats;
+    private final double elapsedSeconds;
+    private final double loadSeconds;
+    private final long heapAfterLoadBytes;
+    private final long peakHeapBytes;
+    private final long gcCount;
+    private final long gcMillis;
+
+    SimulationReport(SimulationConfig config, Map<OperationType, OperationStats> stats, double elapsedSeconds,
+                     double loadSeconds, long heapAfterLoadBytes, long peakHeapBytes, long gcCount, long gcMillis) {
+        this.config = config;
+        this.stats = stats;
+        this.elapsedSeconds = elapsedSeconds;
+        this.loadSeconds = loadSeconds;
+        this.heapAfterLoadBytes = heapAfterLoadBytes;
+        this.peakHeapBytes = peakHeapBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    /**
+     * Gets the throughput of one operation type over the measured phase.
+     * @param type The operation type
+     * @return Operations per second
+     */
+    public double getThroughput(OperationType type) {
+        OperationStats operation = stats.get(type);
+        return operation != null ? operation.getCount() / elapsedSeconds : 0;
+    }
+
+    /**
+     * Gets a latency percentile of one operation type.
+     * @param type The operation type
+     * @param percentile The percentile, between 0 and 100
+     * @return The latency in nanoseconds
+     */
+    public long getLatencyNanos(OperationType type, double percentile) {
+        OperationStats operation = stats.get(type);
+        return operation != null ? operation.getLatencies().percentile(percentile) : 0;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    /**
+     * Prints the report as a table.
+     * @param out The stream to print to
+     */
+    public void print(PrintStream out) {
+        long totalOps = 0;
+        long totalAllocated = 0;
+        for (OperationStats operation : stats.values()) {
+            totalOps += operation.getCount();
+            totalAllocated += operation.getAllocatedBytes();
+        }
+
+        out.println("\n=== Simulation Report ===");
+        out.println(config);
+        out.printf("Load time: %.1fs, heap after load: %s%n", loadSeconds, megabytes(heapAfterLoadBytes));
+        out.printf("Measured: %.1fs, %d ops, %.0f ops/s overall%n", elapsedSeconds, totalOps, totalOps / elapsedSeconds);
+        out.printf("Peak heap: %s, GC: %d collections, %d ms (%.1f%% of wall time)%n",
+                megabytes(peakHeapBytes), gcCount, gcMillis, 100.0 * gcMillis / (elapsedSeconds * 1000));
+        out.println();
+        out.printf("%-9s %10s %10s %8s %9s %9s %9s %9s %9s %10s %11s %10s%n",
+                "op", "count", "ops/s", "fail%", "skipped", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "alloc B/op", "est GC ms");
+        for (Map.Entry<OperationType, OperationStats> entry : stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            long count = operation.getCount();
+            if (count == 0 && operation.getSkips() == 0) {
+                continue;
+            }
+            LatencyHistogram latencies = operation.getLatencies();
+            double gcShare = totalAllocated > 0 ? (double) operation.getAllocatedBytes() / totalAllocated : 0;
+            out.printf("%-9s %10d %10.0f %7.1f%% %9d %9.1f %9.1f %9.1f %9.1f %10.1f %11d %10.0f%n",
+                    entry.getKey(), count, count / elapsedSeconds,
+                    count > 0 ? 100.0 * operation.getFailures() / count : 0.0, operation.getSkips(),
+                    micros(latencies.percentile(50)), micros(latencies.percentile(90)),
+                    micros(latencies.percentile(99)), micros(latencies.percentile(99.9)),
+                    micros(latencies.getMaxValue()),
+                    count > 0 ? operation.getAllocatedBytes() / count : 0, gcMillis * gcShare);
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,369 @@
+package com.library.simulation;
+
+import com.library.event.EventProcessor;
+import com.library.event.EventRingBuffer;
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.repository.BookRepository;
+import com.library.repository.PatronRepository;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.service.PatronService;
+import com.library.snapshot.SnapshotManager;
+import com.library.storage.DiskBookStore;
+import com.library.strategy.SearchByTitle;
+import com.library.util.LoggerUtil;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays a realistic mixed workload against a generated library for capacity planning.
+ *
+ * The catalog and patron base are generated with Zipf-distributed book and author popularity,
+ * then N worker threads run searches, checkouts, returns and registrations through the services
+ * for a warm-up phase followed by a measured phase. Each worker returns the books it checked out,
+ * oldest first, so the number of open loans stays realistic over long runs.
+ *
+ * Usage: java com.library.Main simulate [options], see SimulationConfig for the options.
+ */
+public class WorkloadSimulator {
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int AUTHORS_PER_BOOK_DIVISOR = 20;
+    private static final String[] SYLLABLES = {
+        "ka", "lo", "mi", "ren", "tha", "vo", "sel", "dor", "an", "bri",
+        "cu", "el", "fi", "gor", "ish", "ju", "mar", "nel", "os", "pra"
+    };
+
+    private static final Logger logger = LoggerUtil.getLogger();
+
+    private final SimulationConfig config;
+    private final String[] vocabulary;
+    private BookRepository bookRepository;
+    private PatronRepository patronRepository;
+    private BookService bookService;
+    private PatronService patronService;
+    private LoanService loanService;
+    private EventProcessor eventDrain;
+    private DiskBookStore diskStore;
+    private Path diskStoreFile;
+    private ZipfSampler bookPopularity;
+    private int[] operationThresholds; // Cumulative weights, indexed like OperationType.values()
+
+    public WorkloadSimulator(SimulationConfig config) {
+        this.config = config;
+        this.vocabulary = buildVocabulary(config.getSeed());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SimulationConfig config = SimulationConfig.fromArgs(args);
+        new WorkloadSimulator(config).run().print(System.out);
+    }
+
+    /**
+     * Generates the library, runs the warm-up and measured phases, and collects the report.
+     * Service logging is raised to SEVERE for the duration of the run.
+     * @return The simulation report
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public SimulationReport run() throws InterruptedException {
+        Level previousLevel = logger.getLevel();
+        logger.setLevel(Level.SEVERE);
+        try {
+            long loadStart = System.nanoTime();
+            load();
+            double loadSeconds = (System.nanoTime() - loadStart) / 1e9;
+            System.gc();
+            long heapAfterLoad = usedHeap();
+
+            Worker[] workers = new Worker[config.getThreads()];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Worker(new SplittableRandom(config.getSeed() + 1 + i));
+            }
+            if (config.getWarmupSeconds() > 0) {
+                runPhase(workers, config.getWarmupSeconds());
+            }
+
+            for (Worker worker : workers) {
+                worker.resetStats();
+            }
+            resetPeakHeap();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long start = System.nanoTime();
+            runPhase(workers, config.getDurationSeconds());
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            Map<OperationType, OperationStats> merged = new EnumMap<>(OperationType.class);
+            for (OperationType type : OperationType.values()) {
+                merged.put(type, new OperationStats());
+            }
+            for (Worker worker : workers) {
+                for (OperationType type : OperationType.values()) {
+                    merged.get(type).merge(worker.stats.get(type));
+                }
+            }
+            return new SimulationReport(config, merged, elapsedSeconds, loadSeconds, heapAfterLoad,
+                    peakHeap(), gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        } finally {
+            if (eventDrain != null) {
+                eventDrain.stop();
+            }
+            closeDiskStore();
+            logger.setLevel(previousLevel);
+        }
+    }
+
+    private void load() {
+        if (config.isDiskStoreEnabled()) {
+            try {
+                diskStoreFile = Files.createTempFile("library-catalog", ".db");
+                Files.delete(diskStoreFile); // DiskBookStore lays out a new file itself
+                diskStore = DiskBookStore.open(diskStoreFile, config.getBookCount(), config.getDiskCacheSize());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create the catalog store", e);
+            }
+            bookRepository = new BookRepository(diskStore);
+        } else {
+            bookRepository = new BookRepository(config.getShardCount());
+        }
+        patronRepository = new PatronRepository();
+        bookService = new BookService(bookRepository);
+        bookService.setSearchStrategy(new SearchByTitle());
+        patronService = new PatronService(patronRepository);
+        loanService = new LoanService(bookRepository, patronRepository);
+
+        if (config.isSnapshotsEnabled()) {
+            SnapshotManager snapshotManager = new SnapshotManager();
+            bookService.setSnapshotManager(snapshotManager);
+            patronService.setSnapshotManager(snapshotManager);
+            loanService.setSnapshotManager(snapshotManager);
+        }
+        if (config.isEventsEnabled()) {
+            EventRingBuffer eventBuffer = new EventRingBuffer();
+            bookService.setEventBuffer(eventBuffer);
+            patronService.setEventBuffer(eventBuffer);
+            loanService.setEventBuffer(eventBuffer);
+            eventDrain = eventBuffer.addConsumer((event, sequence, endOfBatch) -> { }, 256);
+            eventDrain.start("simulation-event-drain");
+        }
+
+        SplittableRandom random = new SplittableRandom(config.getSeed());
+        int authorCount = Math.max(1, config.getBookCount() / AUTHORS_PER_BOOK_DIVISOR);
+        ZipfSampler authorPopularity = new ZipfSampler(authorCount, config.getZipfExponent());
+        for (int i = 0; i < config.getBookCount(); i++) {
+            String title = titleOf(i);
+            String author = "Author " + authorPopularity.sample(random);
+            bookService.addBook(new Book(title, author, isbnOf(i), 1900 + random.nextInt(125)));
+        }
+        for (int i = 0; i < config.getPatronCount(); i++) {
+            registerPatron();
+        }
+
+        bookPopularity = new ZipfSampler(config.getBookCount(), config.getZipfExponent());
+        OperationType[] types = OperationType.values();
+        operationThresholds = new int[types.length];
+        int cumulative = 0;
+        for (int i = 0; i < types.length; i++) {
+            cumulative += config.getMix().getOrDefault(types[i], 0);
+            operationThresholds[i] = cumulative;
+        }
+        if (cumulative == 0) {
+            throw new IllegalArgumentException("Operation mix must have at least one positive weight");
+        }
+    }
+
+    private void closeDiskStore() {
+        if (diskStore == null) {
+            return;
+        }
+        try {
+            diskStore.close();
+            Files.deleteIfExists(diskStoreFile);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not clean up " + diskStoreFile + ": " + e.getMessage());
+        }
+    }
+
+    private boolean registerPatron() {
+        int patronId = patronService.getNextPatronId();
+        return patronService.addPatron(new Patron(patronId, "Patron " + patronId,
+                "patron" + patronId + "@example.org", String.format("555-%07d", patronId)));
+    }
+
+    private void runPhase(Worker[] workers, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            Thread thread = new Thread(() -> worker.runUntil(deadline), "simulation-worker-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * One simulated front desk: picks operations by weight and times each call.
+     */
+    private final class Worker {
+        private final SplittableRandom random;
+        private final ArrayDeque<long[]> openLoans; // {book index, patronId}, oldest first
+        private final Map<OperationType, OperationStats> stats;
+        private final com.sun.management.ThreadMXBean allocationBean;
+
+        Worker(SplittableRandom random) {
+            this.random = random;
+            this.openLoans = new ArrayDeque<>();
+            this.stats = new EnumMap<>(OperationType.class);
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            this.allocationBean = threadBean instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) threadBean
+                    : null;
+            resetStats();
+        }
+
+        void resetStats() {
+            for (OperationType type : OperationType.values()) {
+                stats.put(type, new OperationStats());
+            }
+        }
+
+        void runUntil(long deadline) {
+            long threadId = Thread.currentThread().getId();
+            while (System.nanoTime() < deadline) {
+                OperationType type = pickOperation();
+                if (type == OperationType.RETURN && openLoans.isEmpty()) {
+                    // Nothing this desk lent is still out; not a failed return
+                    stats.get(type).recordSkip();
+                    continue;
+                }
+                long allocatedBefore = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+                long start = System.nanoTime();
+                boolean succeeded = execute(type);
+                long elapsed = System.nanoTime() - start;
+                long allocated = allocationBean != null
+                        ? allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+                        : 0;
+                stats.get(type).record(elapsed, succeeded, allocated);
+            }
+        }
+
+        private OperationType pickOperation() {
+            int roll = random.nextInt(operationThresholds[operationThresholds.length - 1]);
+            OperationType[] types = OperationType.values();
+            for (int i = 0; i < types.length; i++) {
+                if (roll < operationThresholds[i]) {
+                    return types[i];
+                }
+            }
+            return types[types.length - 1];
+        }
+
+        private boolean execute(OperationType type) {
+            switch (type) {
+                case SEARCH: {
+                    String[] words = titleOf(bookPopularity.sample(random) - 1).split(" ");
+                    return !bookService.searchBooks(words[random.nextInt(words.length)]).isEmpty();
+                }
+                case CHECKOUT: {
+                    int book = bookPopularity.sample(random) - 1;
+                    int patronId = 1 + random.nextInt(config.getPatronCount());
+                    boolean succeeded = loanService.checkoutBook(isbnOf(book), patronId);
+                    if (succeeded) {
+                        openLoans.addLast(new long[] {book, patronId});
+                    }
+                    return succeeded;
+                }
+                case RETURN: {
+                    long[] loan = openLoans.pollFirst();
+                    return loanService.returnBook(isbnOf((int) loan[0]), (int) loan[1]);
+                }
+                case REGISTER:
+                    return registerPatron();
+                default:
+                    throw new IllegalStateException("Unknown operation " + type);
+            }
+        }
+    }
+
+    private String titleOf(int bookIndex) {
+        // Deterministic, so searches can pick real title words without storing them
+        SplittableRandom random = new SplittableRandom(config.getSeed() * 31 + bookIndex);
+        return vocabulary[random.nextInt(VOCABULARY_SIZE)] + " "
+                + vocabulary[random.nextInt(VOCABULARY_SIZE)] + " "
+                + vocabulary[random.nextInt(VOCABULARY_SIZE)];
+    }
+
+    private static String isbnOf(int bookIndex) {
+        return String.format("979-%010d", bookIndex);
+    }
+
+    private static String[] buildVocabulary(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] words = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(2);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.append(i).toString(); // Suffix keeps words unique
+        }
+        return words;
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.snapshot;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A set of writes that becomes visible to new snapshots atomically on close.
+ * Mutable values are copied on the way in, so later mutations of live objects
+ * never leak into versions that snapshots may already be reading; books are
+ * immutable and stored as they are.
+ */
+public class Commit implements AutoCloseable {
+    /**
+     * A commit that records nothing, for services running without snapshots.
+     */
+    public static final Commit NONE = new Commit(null, 0, 0, null);
+
+    private final SnapshotManager manager;
+    private final long version;
+    private final long oldestVisible;
+    private final ReentrantLock lock; // The key's writer lock, or null if the commit holds them all
+    private boolean closed;
+
+    Commit(SnapshotManager manager, long version, long oldestVisible, ReentrantLock lock) {
+        this.manager = manager;
+        this.version = version;
+        this.oldestVisible = oldestVisible;
+        this.lock = lock;
+    }
+
+    /**
+     * Records the current state of a book.
+     * @param book The book
+     */
+    public void putBook(Book book) {
+        if (manager != null) {
+            manager.books().put(book.getIsbn(), book, version, oldestVisible);
+        }
+    }
+
+    /**
+     * Records that a book was removed from the catalog.
+     * @param isbn The ISBN of the removed book
+     */
+    public void removeBook(String isbn) {
+        if (manager != null) {
+            manager.books().put(isbn, null, version, oldestVisible);
+        }
+    }
+
+    /**
+     * Records the current state of a patron. Borrowing history is not versioned;
+     * snapshot readers get it from the active loans instead.
+     * @param patron The patron
+     */
+    public void putPatron(Patron patron) {
+        if (manager != null) {
+            manager.patrons().put(patron.getPatronId(), copyOf(patron), version, oldestVisible);
+        }
+    }
+
+    /**
+     * Records a newly opened loan, which also marks its book as lent out.
+     * @param loan The loan
+     */
+    public void putLoan(Loan loan) {
+        if (manager != null) {
+            Loan copy = new Loan(loan.getLoanId(), loan.getBook(), copyOf(loan.getPatron()),
+                    loan.getCheckoutDate());
+            copy.setReturnDate(loan.getReturnDate());
+            manager.loans().put(loan.getBook().getIsbn(), copy, version, oldestVisible);
+        }
+    }
+
+    /**
+     * Records that the open loan of a book was closed.
+     * @param isbn The ISBN of the returned book
+     */
+    public void removeLoan(String isbn) {
+        if (manager != null) {
+            manager.loans().put(isbn, null, version, oldestVisible);
+        }
+    }
+
+    /**
+     * Publishes the writes and releases the writer lock.
+     */
+    @Override
+    public void close() {
+        if (manager != null && !closed) {
+            closed = true;
+            manager.publish(version, lock);
+        }
+    }
+
+    private static Patron copyOf(Patron patron) {
+        return new Patron(patron.getPatronId(), patron.getName(), patron.getEmail(), patron.getPhoneNumber(),
+                patron.getCategory());
+    }
+}
@@ -0,0 +1,129 @@
+package com.library.snapshot;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A read-only, point-in-time consistent view of the library.
+ * Every read sees exactly the state as of one committed version, no matter how long
+ * the reader takes or how many checkouts happen meanwhile. The returned objects are
+ * private copies; changing them has no effect on the library.
+ * Close the snapshot when done so the versions it pins can be reclaimed.
+ */
+public class LibrarySnapshot implements AutoCloseable {
+    private final SnapshotManager manager;
+    private final long version;
+    private boolean closed;
+
+    LibrarySnapshot(SnapshotManager manager, long version) {
+        this.manager = manager;
+        this.version = version;
+    }
+
+    /**
+     * Gets the committed version this snapshot reads.
+     * @return The snapshot version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Finds a book by ISBN as of this snapshot.
+     * @param isbn The ISBN to search for
+     * @return The book if it existed, null otherwise
+     */
+    public Book findByISBN(String isbn) {
+        return manager.books().get(isbn, version);
+    }
+
+    /**
+     * Finds a patron by ID as of this snapshot.
+     * @param patronId The ID to search for
+     * @return The patron if it existed, null otherwise
+     */
+    public Patron findPatronById(int patronId) {
+        return manager.patrons().get(patronId, version);
+    }
+
+    /**
+     * Finds the open loan of a book as of this snapshot.
+     * @param isbn The ISBN of the book
+     * @return The loan if the book was lent out, null otherwise
+     */
+    public Loan findActiveLoan(String isbn) {
+        return manager.loans().get(isbn, version);
+    }
+
+    /**
+     * Checks whether a book was on the shelf as of this snapshot.
+     * @param isbn The ISBN of the book
+     * @return true if the book had no open loan
+     */
+    public boolean isAvailable(String isbn) {
+        return findActiveLoan(isbn) == null;
+    }
+
+    /**
+     * Lazily streams all books without building an intermediate list.
+     * @return Stream of books
+     */
+    public Stream<Book> books() {
+        return manager.books().values(version);
+    }
+
+    /**
+     * Lazily streams all patrons without building an intermediate list.
+     * @return Stream of patrons
+     */
+    public Stream<Patron> patrons() {
+        return manager.patrons().values(version);
+    }
+
+    /**
+     * Lazily streams all active loans without building an intermediate list.
+     * @return Stream of active loans
+     */
+    public Stream<Loan> activeLoans() {
+        return manager.loans().values(version);
+    }
+
+    /**
+     * Gets all books as of this snapshot.
+     * @return List of all books
+     */
+    public List<Book> getAllBooks() {
+        return books().collect(Collectors.toList());
+    }
+
+    /**
+     * Gets all patrons as of this snapshot.
+     * @return List of all patrons
+     */
+    public List<Patron> getAllPatrons() {
+        return patrons().collect(Collectors.toList());
+    }
+
+    /**
+     * Gets all active loans as of this snapshot.
+     * @return List of active loans
+     */
+    public List<Loan> getActiveLoans() {
+        return activeLoans().collect(Collectors.toList());
+    }
+
+    /**
+     * Releases the snapshot. Calling close more than once has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            manager.close(this);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.library.snapshot;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.Patron;
+import com.library.util.StripedLock;
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multi-version store behind point-in-time consistent reads of books, patrons and active loans.
+ *
+ * Services record every change through a Commit, which stamps all writes of one operation
+ * (for example a checkout's book and loan) with the same version. Readers open a
+ * LibrarySnapshot pinned to the latest committed version and never block writers.
+ *
+ * Writers serialize per key, not globally: a commit locks the stripe of the one key it
+ * writes, so commits on different ISBNs or patrons run in parallel. Versions are handed out
+ * in begin order, and the committed version only advances past a version once every earlier
+ * one has closed too, so a snapshot never sees a later commit without the earlier ones.
+ * The only step all writers share is taking a version number and retiring it, a few
+ * instructions under one monitor. Versions that no open snapshot can see are pruned as keys
+ * are rewritten, and swept in full when the oldest snapshot closes.
+ */
+public class SnapshotManager {
+    private final VersionedMap<String, Book> books;    // Key: ISBN
+    private final VersionedMap<Integer, Patron> patrons; // Key: patronId
+    private final VersionedMap<String, Loan> loans;    // Key: ISBN of the lent book
+    private static final int COMMIT_STRIPES = 256;
+
+    private final StripedLock commitLocks;
+    private final Object sequencer; // Guards lastVersion and pendingVersions
+    private long lastVersion; // Highest version handed out
+    private final TreeSet<Long> pendingVersions; // Begun but not yet closed
+    private final ConcurrentNavigableMap<Long, Integer> openSnapshots; // Key: version, Value: reader count
+    private volatile long committedVersion;
+
+    public SnapshotManager() {
+        this.books = new VersionedMap<>();
+        this.patrons = new VersionedMap<>();
+        this.loans = new VersionedMap<>();
+        this.commitLocks = new StripedLock(COMMIT_STRIPES);
+        this.sequencer = new Object();
+        this.pendingVersions = new TreeSet<>();
+        this.openSnapshots = new ConcurrentSkipListMap<>();
+        this.committedVersion = 0;
+    }
+
+    /**
+     * Starts a commit that writes one key. Writes made through it become visible together
+     * when it is closed. Use with try-with-resources; the commit holds the key's writer lock
+     * until closed, and must only write that key.
+     * @param key The ISBN or patron ID being written
+     * @return The open commit
+     */
+    public Commit beginCommit(Object key) {
+        ReentrantLock lock = commitLocks.forKey(key);
+        lock.lock();
+        return new Commit(this, nextVersion(), oldestVisibleVersion(), lock);
+    }
+
+    /**
+     * Starts a commit that may write any keys, e.g. a bulk import. It holds every writer lock,
+     * so it waits for commits in progress and blocks new ones until closed.
+     * @return The open commit
+     */
+    public Commit beginCommit() {
+        commitLocks.lockAll();
+        return new Commit(this, nextVersion(), oldestVisibleVersion(), null);
+    }
+
+    private long nextVersion() {
+        synchronized (sequencer) {
+            long version = ++lastVersion;
+            pendingVersions.add(version);
+            return version;
+        }
+    }
+
+    void publish(long version, ReentrantLock lock) {
+        synchronized (sequencer) {
+            pendingVersions.remove(version);
+            // Everything below the oldest commit still open is complete
+            committedVersion = pendingVersions.isEmpty() ? lastVersion : pendingVersions.first() - 1;
+        }
+        if (lock != null) {
+            lock.unlock();
+        } else {
+            commitLocks.unlockAll();
+        }
+    }
+
+    /**
+     * Loads existing state, e.g. when snapshots are enabled on an already populated library.
+     * @param allBooks Every book in the catalog
+     * @param allPatrons Every patron
+     * @param activeLoans Every loan not yet returned
+     */
+    public void importState(Collection<Book> allBooks, Collection<Patron> allPatrons, Collection<Loan> activeLoans) {
+        try (Commit commit = beginCommit()) {
+            allBooks.forEach(commit::putBook);
+            allPatrons.forEach(commit::putPatron);
+            activeLoans.forEach(commit::putLoan);
+        }
+    }
+
+    /**
+     * Opens a snapshot of the latest committed state. Opening never waits for writers.
+     * The snapshot must be closed so the versions it pins can be reclaimed.
+     * @return The open snapshot
+     */
+    public LibrarySnapshot openSnapshot() {
+        while (true) {
+            long version = committedVersion;
+            openSnapshots.merge(version, 1, Integer::sum);
+            if (committedVersion == version) {
+                // No newer commit was published before registration, so nothing we need was pruned
+                return new LibrarySnapshot(this, version);
+            }
+            release(version);
+        }
+    }
+
+    void close(LibrarySnapshot snapshot) {
+        long version = snapshot.getVersion();
+        boolean wasOldest = version == openSnapshots.firstKey();
+        release(version);
+        if (wasOldest) {
+            reclaim();
+        }
+    }
+
+    private void release(long version) {
+        openSnapshots.computeIfPresent(version, (v, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Drops every version that no open snapshot can read any more.
+     */
+    public void reclaim() {
+        long oldest = oldestVisibleVersion();
+        books.reclaim(oldest);
+        patrons.reclaim(oldest);
+        loans.reclaim(oldest);
+    }
+
+    private long oldestVisibleVersion() {
+        long oldest = committedVersion;
+        Long firstOpen = openSnapshots.isEmpty() ? null : openSnapshots.firstKey();
+        return firstOpen != null && firstOpen < oldest ? firstOpen : oldest;
+    }
+
+    /**
+     * Gets the latest committed version.
+     * @return The committed version
+     */
+    public long getCommittedVersion() {
+        return committedVersion;
+    }
+
+    /**
+     * Gets the number of snapshots currently open.
+     * @return The open snapshot count
+     */
+    public int getOpenSnapshotCount() {
+        int count = 0;
+        for (int readers : openSnapshots.values()) {
+            count += readers;
+        }
+        return count;
+    }
+
+    VersionedMap<String, Book> books() {
+        return books;
+    }
+
+    VersionedMap<Integer, Patron> patrons() {
+        return patrons;
+    }
+
+    VersionedMap<String, Loan> loans() {
+        return loans;
+    }
+}
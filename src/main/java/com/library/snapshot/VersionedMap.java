@@ -0,0 +1,114 @@
+package com.library.snapshot;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A map that keeps a chain of committed versions per key.
+ * Writers push a new head onto the chain; readers walk from the head to the newest
+ * version that is not newer than their snapshot, so neither side ever locks.
+ * A null value is a tombstone recording that the key was removed at that version.
+ *
+ * @param <K> The key type
+ * @param <V> The value type; stored values must not be mutated after being put
+ */
+class VersionedMap<K, V> {
+    private final Map<K, Version<V>> entries;
+
+    /**
+     * One committed value of a key, linked to the version it replaced.
+     */
+    private static final class Version<V> {
+        final V value;
+        final long version;
+        volatile Version<V> previous;
+
+        Version(V value, long version, Version<V> previous) {
+            this.value = value;
+            this.version = version;
+            this.previous = previous;
+        }
+    }
+
+    VersionedMap() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records a value for a key at the given version. Callers must hold the key's commit lock.
+     * @param key The key
+     * @param value The value, or null to record a removal
+     * @param version The commit version
+     * @param oldestVisible The oldest version any open snapshot can read
+     */
+    void put(K key, V value, long version, long oldestVisible) {
+        Version<V> head = new Version<>(value, version, entries.get(key));
+        prune(head, oldestVisible);
+        entries.put(key, head);
+    }
+
+    /**
+     * Gets the value of a key as of a snapshot version.
+     * @param key The key
+     * @param readVersion The snapshot version
+     * @return The visible value, or null if the key did not exist at that version
+     */
+    V get(K key, long readVersion) {
+        return visible(entries.get(key), readVersion);
+    }
+
+    /**
+     * Lazily streams every value visible at a snapshot version.
+     * @param readVersion The snapshot version
+     * @return Stream of visible values
+     */
+    Stream<V> values(long readVersion) {
+        return entries.values().stream()
+                .map(head -> visible(head, readVersion))
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Drops versions no open snapshot can see and removes keys whose removal is visible to all.
+     * Safe to run concurrently with writers and readers.
+     * @param oldestVisible The oldest version any open snapshot can read
+     */
+    void reclaim(long oldestVisible) {
+        for (Map.Entry<K, Version<V>> entry : entries.entrySet()) {
+            Version<V> head = entry.getValue();
+            prune(head, oldestVisible);
+            if (head.value == null && head.version <= oldestVisible) {
+                entries.remove(entry.getKey(), head);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of keys currently tracked, including unreclaimed tombstones.
+     * @return The key count
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private static <V> V visible(Version<V> head, long readVersion) {
+        Version<V> current = head;
+        while (current != null && current.version > readVersion) {
+            current = current.previous;
+        }
+        return current != null ? current.value : null;
+    }
+
+    private static <V> void prune(Version<V> head, long oldestVisible) {
+        // Everything behind the newest version at or below oldestVisible is unreachable
+        Version<V> current = head;
+        while (current != null && current.version > oldestVisible) {
+            current = current.previous;
+        }
+        if (current != null) {
+            current.previous = null;
+        }
+    }
+}
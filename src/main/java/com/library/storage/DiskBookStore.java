@@ -0,0 +1,423 @@
+package com.library.storage;
+
+import com.library.model.Book;
+import com.library.repository.BookStore;
+import com.library.strategy.SearchStrategy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Book store that keeps the whole catalog in a memory-mapped file and only hot books on the heap.
+ *
+ * The file is a static hash table of pages. Page 0 is the header; pages 1..bucketCount are
+ * the primary bucket pages, and each bucket chains overflow pages appended at the end of
+ * the file when it fills up. A page holds variable-length records packed after a small
+ * header:
+ *
+ *   page:   long nextPage | int usedBytes | int recordCount | records...
+ *   record: int length | long version | int publicationYear |
+ *           short+bytes isbn | short+bytes title | short+bytes author   (UTF-8)
+ *
+ * Lookups go through a bounded SLRU cache of decoded books, so popular titles are served
+ * from the heap while a catalog scan cannot evict them, and heap use is fixed by the cache
+ * capacity rather than the catalog size. Buckets are guarded by striped read/write locks;
+ * a cache fill happens under the bucket's read lock and every write updates page and
+ * cache under its write lock, so the cache never serves a stale revision.
+ *
+ * Removing a record compacts its page in place; emptied overflow pages stay in their chain
+ * and are reused by later inserts into the same bucket. Call {@link #flush()} to force
+ * written pages to disk; {@link #close()} flushes too.
+ */
+public class DiskBookStore implements BookStore, AutoCloseable {
+    public static final int DEFAULT_PAGE_SIZE = 8192;
+    public static final int DEFAULT_CACHE_CAPACITY = 100_000;
+
+    private static final int MAGIC = 0x4C424B53; // "LBKS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_PAGE_SIZE_OFFSET = 8;
+    private static final int HEADER_BUCKET_COUNT_OFFSET = 12;
+    private static final int HEADER_PAGE_COUNT_OFFSET = 16;
+    private static final int HEADER_BOOK_COUNT_OFFSET = 24;
+
+    private static final int NEXT_PAGE_OFFSET = 0;
+    private static final int USED_BYTES_OFFSET = 8;
+    private static final int RECORD_COUNT_OFFSET = 12;
+    private static final int RECORDS_OFFSET = 16;
+    private static final int RECORD_FIXED_BYTES = 4 + 8 + 4 + 2 + 2 + 2;
+
+    private static final int RECORDS_PER_BUCKET_TARGET = 48; // Leaves primary pages room to absorb skew
+    private static final int LOCK_STRIPES = 256;
+    private static final double PROTECTED_FRACTION = 0.8;
+
+    private final PageFile file;
+    private final int bucketCount;
+    private final int recordCapacity; // Bytes available for records in one page
+    private final AtomicLong pageCount;
+    private final AtomicLong bookCount;
+    private final ReentrantReadWriteLock[] stripes;
+    private final SlruCache<String, Book> cache;
+
+    private DiskBookStore(PageFile file, int bucketCount, long pageCount, long bookCount, int cacheCapacity) {
+        this.file = file;
+        this.bucketCount = bucketCount;
+        this.recordCapacity = file.getPageSize() - RECORDS_OFFSET;
+        this.pageCount = new AtomicLong(pageCount);
+        this.bookCount = new AtomicLong(bookCount);
+        this.stripes = new ReentrantReadWriteLock[LOCK_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.cache = new SlruCache<>(cacheCapacity, PROTECTED_FRACTION);
+    }
+
+    /**
+     * Opens a store, creating the file sized for the expected catalog if it does not exist.
+     * @param path The store file
+     * @param expectedBooks Catalog size used to choose the bucket count of a new file
+     * @param cacheCapacity The most books kept decoded on the heap
+     * @return The open store
+     * @throws IOException If the file cannot be opened or is not a book store
+     */
+    public static DiskBookStore open(Path path, long expectedBooks, int cacheCapacity) throws IOException {
+        boolean exists = Files.exists(path) && Files.size(path) > 0;
+        PageFile file = new PageFile(path, DEFAULT_PAGE_SIZE);
+        try {
+            file.ensureMapped(0);
+            if (!exists) {
+                long buckets = Math.max(1, (expectedBooks + RECORDS_PER_BUCKET_TARGET - 1) / RECORDS_PER_BUCKET_TARGET);
+                if (buckets > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Expected catalog too large: " + expectedBooks);
+                }
+                file.ensureMapped(buckets);
+                file.putInt(0, 0, MAGIC);
+                file.putInt(0, 4, FORMAT_VERSION);
+                file.putInt(0, HEADER_PAGE_SIZE_OFFSET, DEFAULT_PAGE_SIZE);
+                file.putInt(0, HEADER_BUCKET_COUNT_OFFSET, (int) buckets);
+                file.putLong(0, HEADER_PAGE_COUNT_OFFSET, buckets + 1);
+                file.putLong(0, HEADER_BOOK_COUNT_OFFSET, 0);
+                return new DiskBookStore(file, (int) buckets, buckets + 1, 0, cacheCapacity);
+            }
+            if (file.getInt(0, 0) != MAGIC || file.getInt(0, 4) != FORMAT_VERSION
+                    || file.getInt(0, HEADER_PAGE_SIZE_OFFSET) != DEFAULT_PAGE_SIZE) {
+                throw new IOException("Not a book store file: " + path);
+            }
+            long pages = file.getLong(0, HEADER_PAGE_COUNT_OFFSET);
+            file.ensureMapped(pages - 1);
+            return new DiskBookStore(file, file.getInt(0, HEADER_BUCKET_COUNT_OFFSET), pages,
+                    file.getLong(0, HEADER_BOOK_COUNT_OFFSET), cacheCapacity);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean add(Book book) {
+        byte[] record = encode(book);
+        int bucket = bucketOf(book.getIsbn());
+        ReentrantReadWriteLock lock = stripeOf(bucket);
+        lock.writeLock().lock();
+        try {
+            if (find(bucket, isbnBytes(book.getIsbn())) != null) {
+                return false;
+            }
+            insert(bucket, record);
+            bookCount.incrementAndGet();
+            cache.put(book.getIsbn(), book);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String isbn) {
+        int bucket = bucketOf(isbn);
+        ReentrantReadWriteLock lock = stripeOf(bucket);
+        lock.writeLock().lock();
+        try {
+            RecordLocation location = find(bucket, isbnBytes(isbn));
+            if (location == null) {
+                return false;
+            }
+            delete(location);
+            bookCount.decrementAndGet();
+            cache.remove(isbn);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        Book cached = cache.get(isbn);
+        if (cached != null) {
+            return cached;
+        }
+        int bucket = bucketOf(isbn);
+        ReentrantReadWriteLock lock = stripeOf(bucket);
+        lock.readLock().lock();
+        try {
+            RecordLocation location = find(bucket, isbnBytes(isbn));
+            if (location == null) {
+                return null;
+            }
+            Book book = decode(location.page, location.offset);
+            cache.put(isbn, book);
+            return book;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a revision if the stored one still has the same version.
+     */
+    @Override
+    public boolean replace(Book current, Book next) {
+        byte[] record = encode(next);
+        int bucket = bucketOf(current.getIsbn());
+        ReentrantReadWriteLock lock = stripeOf(bucket);
+        lock.writeLock().lock();
+        try {
+            RecordLocation location = find(bucket, isbnBytes(current.getIsbn()));
+            if (location == null || file.getLong(location.page, location.offset + 4) != current.getVersion()) {
+                return false;
+            }
+            delete(location);
+            insert(bucket, record);
+            cache.put(next.getIsbn(), next);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, bookCount.get());
+    }
+
+    /**
+     * Decodes one bucket at a time as the stream advances, so only the current bucket's
+     * books are on the heap. Streamed books do not enter the cache.
+     */
+    @Override
+    public Stream<Book> stream() {
+        return IntStream.range(0, bucketCount).mapToObj(this::readBucket).flatMap(List::stream);
+    }
+
+    /**
+     * Scans the file one bucket at a time, so only matches and one bucket's books
+     * are on the heap at once. Scanned books do not enter the cache.
+     */
+    @Override
+    public List<Book> search(SearchStrategy strategy, String query) {
+        List<Book> results = new ArrayList<>();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            List<Book> books = readBucket(bucket);
+            if (!books.isEmpty()) {
+                results.addAll(strategy.search(books, query));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the fraction of lookups answered from the cache since the store was opened.
+     * @return The hit rate between 0 and 1
+     */
+    public double getCacheHitRate() {
+        long hits = cache.getHitCount();
+        long total = hits + cache.getMissCount();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * Gets the number of books currently decoded on the heap.
+     * @return The cache size
+     */
+    public int getCachedBookCount() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the number of pages in the file, header and overflow pages included.
+     * @return The page count
+     */
+    public long getPageCount() {
+        return pageCount.get();
+    }
+
+    /**
+     * Writes the header and every modified page to disk.
+     */
+    public void flush() {
+        file.putLong(0, HEADER_BOOK_COUNT_OFFSET, bookCount.get());
+        file.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        file.close();
+    }
+
+    /**
+     * Where a record sits in the file.
+     */
+    private static final class RecordLocation {
+        final long page;
+        final int offset;
+        final int length;
+
+        RecordLocation(long page, int offset, int length) {
+            this.page = page;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private RecordLocation find(int bucket, byte[] isbn) {
+        for (long page = bucket + 1; page != 0; page = file.getLong(page, NEXT_PAGE_OFFSET)) {
+            int end = RECORDS_OFFSET + file.getInt(page, USED_BYTES_OFFSET);
+            for (int offset = RECORDS_OFFSET; offset < end; ) {
+                int length = file.getInt(page, offset);
+                if (isbnEquals(page, offset + 16, isbn)) {
+                    return new RecordLocation(page, offset, length);
+                }
+                offset += length;
+            }
+        }
+        return null;
+    }
+
+    private boolean isbnEquals(long page, int offset, byte[] isbn) {
+        if (file.getShort(page, offset) != isbn.length) {
+            return false;
+        }
+        for (int i = 0; i < isbn.length; i++) {
+            if (file.getByte(page, offset + 2 + i) != isbn[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int bucket, byte[] record) {
+        long page = bucket + 1;
+        while (true) {
+            int used = file.getInt(page, USED_BYTES_OFFSET);
+            if (used + record.length <= recordCapacity) {
+                file.put(page, RECORDS_OFFSET + used, record);
+                file.putInt(page, USED_BYTES_OFFSET, used + record.length);
+                file.putInt(page, RECORD_COUNT_OFFSET, file.getInt(page, RECORD_COUNT_OFFSET) + 1);
+                return;
+            }
+            long next = file.getLong(page, NEXT_PAGE_OFFSET);
+            if (next == 0) {
+                next = allocatePage();
+                file.putLong(page, NEXT_PAGE_OFFSET, next);
+            }
+            page = next;
+        }
+    }
+
+    private void delete(RecordLocation location) {
+        int used = file.getInt(location.page, USED_BYTES_OFFSET);
+        int tail = location.offset + location.length;
+        file.move(location.page, tail, location.offset, RECORDS_OFFSET + used - tail);
+        file.putInt(location.page, USED_BYTES_OFFSET, used - location.length);
+        file.putInt(location.page, RECORD_COUNT_OFFSET, file.getInt(location.page, RECORD_COUNT_OFFSET) - 1);
+    }
+
+    private synchronized long allocatePage() {
+        long page = pageCount.getAndIncrement();
+        try {
+            file.ensureMapped(page);
+        } catch (IOException e) {
+            pageCount.decrementAndGet();
+            throw new IllegalStateException("Cannot grow book store file", e);
+        }
+        file.putLong(0, HEADER_PAGE_COUNT_OFFSET, pageCount.get());
+        return page;
+    }
+
+    private List<Book> readBucket(int bucket) {
+        List<Book> books = new ArrayList<>();
+        ReentrantReadWriteLock lock = stripeOf(bucket);
+        lock.readLock().lock();
+        try {
+            for (long page = bucket + 1; page != 0; page = file.getLong(page, NEXT_PAGE_OFFSET)) {
+                int end = RECORDS_OFFSET + file.getInt(page, USED_BYTES_OFFSET);
+                for (int offset = RECORDS_OFFSET; offset < end; offset += file.getInt(page, offset)) {
+                    books.add(decode(page, offset));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+    private byte[] encode(Book book) {
+        byte[] isbn = isbnBytes(book.getIsbn());
+        byte[] title = utf8(book.getTitle());
+        byte[] author = utf8(book.getAuthor());
+        int length = RECORD_FIXED_BYTES + isbn.length + title.length + author.length;
+        if (length > recordCapacity || isbn.length > Short.MAX_VALUE
+                || title.length > Short.MAX_VALUE || author.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Book record too large for a page: ISBN " + book.getIsbn());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length).putLong(book.getVersion()).putInt(book.getPublicationYear());
+        buffer.putShort((short) isbn.length).put(isbn);
+        buffer.putShort((short) title.length).put(title);
+        buffer.putShort((short) author.length).put(author);
+        return buffer.array();
+    }
+
+    private Book decode(long page, int offset) {
+        long version = file.getLong(page, offset + 4);
+        int year = file.getInt(page, offset + 12);
+        int position = offset + 16;
+        byte[] isbn = new byte[file.getShort(page, position)];
+        file.get(page, position + 2, isbn);
+        position += 2 + isbn.length;
+        byte[] title = new byte[file.getShort(page, position)];
+        file.get(page, position + 2, title);
+        position += 2 + title.length;
+        byte[] author = new byte[file.getShort(page, position)];
+        file.get(page, position + 2, author);
+        return new Book(new String(title, StandardCharsets.UTF_8), new String(author, StandardCharsets.UTF_8),
+                new String(isbn, StandardCharsets.UTF_8), year, version);
+    }
+
+    private static byte[] isbnBytes(String isbn) {
+        return isbn.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private int bucketOf(String isbn) {
+        int h = isbn.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, bucketCount);
+    }
+
+    private ReentrantReadWriteLock stripeOf(int bucket) {
+        return stripes[bucket % stripes.length];
+    }
+}
@@ -0,0 +1,126 @@
+package com.library.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file of fixed-size pages accessed through memory mapping.
+ *
+ * The file is mapped in fixed segments of whole pages, so it can grow past the 2 GB
+ * limit of a single mapping and a page never straddles two segments. All access uses
+ * absolute offsets, never a buffer's position, so threads can read and write different
+ * pages concurrently; callers serialize access to the same page. The mapped data lives
+ * in the OS page cache, not on the Java heap.
+ */
+class PageFile implements AutoCloseable {
+    static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int pagesPerSegment;
+    private volatile MappedByteBuffer[] segments;
+
+    PageFile(Path path, int pageSize) throws IOException {
+        if (Integer.bitCount(pageSize) != 1 || pageSize < 512 || pageSize > SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Page size must be a power of two between 512 bytes and 64 MB");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.pageSize = pageSize;
+        this.pagesPerSegment = (int) (SEGMENT_BYTES / pageSize);
+        this.segments = new MappedByteBuffer[0];
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Maps the file up to and including the given page, growing the file if needed.
+     * @param page The page number
+     */
+    synchronized void ensureMapped(long page) throws IOException {
+        int needed = (int) (page / pagesPerSegment) + 1;
+        MappedByteBuffer[] current = segments;
+        if (needed <= current.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+        for (int i = current.length; i < needed; i++) {
+            // Mapping past the end of the file extends it; the new bytes read as zero
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * SEGMENT_BYTES, SEGMENT_BYTES);
+        }
+        segments = grown;
+    }
+
+    int getInt(long page, int offset) {
+        return segment(page).getInt(base(page) + offset);
+    }
+
+    void putInt(long page, int offset, int value) {
+        segment(page).putInt(base(page) + offset, value);
+    }
+
+    long getLong(long page, int offset) {
+        return segment(page).getLong(base(page) + offset);
+    }
+
+    void putLong(long page, int offset, long value) {
+        segment(page).putLong(base(page) + offset, value);
+    }
+
+    short getShort(long page, int offset) {
+        return segment(page).getShort(base(page) + offset);
+    }
+
+    byte getByte(long page, int offset) {
+        return segment(page).get(base(page) + offset);
+    }
+
+    void get(long page, int offset, byte[] target) {
+        segment(page).get(base(page) + offset, target);
+    }
+
+    void put(long page, int offset, byte[] source) {
+        segment(page).put(base(page) + offset, source);
+    }
+
+    /**
+     * Moves bytes within one page; the ranges may overlap.
+     */
+    void move(long page, int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+        byte[] bytes = new byte[length];
+        get(page, from, bytes);
+        put(page, to, bytes);
+    }
+
+    /**
+     * Writes every modified page back to the storage device.
+     */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long page) {
+        return segments[(int) (page / pagesPerSegment)];
+    }
+
+    private int base(long page) {
+        return (int) (page % pagesPerSegment) * pageSize;
+    }
+}
@@ -0,0 +1,166 @@
+package com.library.storage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache with segmented LRU (SLRU) eviction.
+ *
+ * New entries enter a probationary segment; a second hit promotes an entry to the
+ * protected segment, which holds most of the capacity. Evictions come from the
+ * probationary segment first, and protected entries pushed out by promotions drop
+ * back to probation rather than out of the cache. A one-off scan over many keys
+ * therefore only churns probation and cannot flush the popular working set.
+ *
+ * Thread-safe. Keys are hashed onto independent stripes, each an SLRU over its share of
+ * the capacity with its own monitor, so lookups of different keys rarely contend and every
+ * operation is O(1) under one stripe's monitor. Recency is tracked per stripe, which with
+ * well-spread keys evicts close to what a single global SLRU would.
+ */
+class SlruCache<K, V> {
+    private static final int MAX_STRIPES = 64;
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    /**
+     * One stripe: a complete SLRU over a share of the capacity.
+     */
+    private static final class Stripe<K, V> {
+        private final int probationCapacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<K, V> probation; // Access order, least recent first
+        private final LinkedHashMap<K, V> protectedSegment;
+
+        Stripe(int capacity, double protectedFraction) {
+            this.protectedCapacity = Math.max(1, Math.min(capacity - 1, (int) (capacity * protectedFraction)));
+            this.probationCapacity = capacity - protectedCapacity;
+            this.probation = new LinkedHashMap<>(16, 0.75f, true);
+            this.protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        synchronized V get(K key) {
+            V value = protectedSegment.get(key);
+            if (value != null) {
+                return value;
+            }
+            value = probation.remove(key);
+            if (value != null) {
+                promote(key, value);
+            }
+            return value;
+        }
+
+        synchronized void put(K key, V value) {
+            if (protectedSegment.containsKey(key)) {
+                protectedSegment.put(key, value);
+                return;
+            }
+            probation.put(key, value);
+            if (probation.size() > probationCapacity) {
+                evictEldest(probation);
+            }
+        }
+
+        synchronized void remove(K key) {
+            if (protectedSegment.remove(key) == null) {
+                probation.remove(key);
+            }
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedSegment.size();
+        }
+
+        private void promote(K key, V value) {
+            protectedSegment.put(key, value);
+            if (protectedSegment.size() > protectedCapacity) {
+                // Demote the least recently used protected entry back to probation
+                Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, V> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+                if (probation.size() > probationCapacity) {
+                    evictEldest(probation);
+                }
+            }
+        }
+
+        private static <K, V> void evictEldest(LinkedHashMap<K, V> segment) {
+            Iterator<Map.Entry<K, V>> eldest = segment.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Creates a cache.
+     * @param capacity The maximum number of entries, at least 2
+     * @param protectedFraction Share of the capacity reserved for entries hit more than once
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    SlruCache(int capacity, double protectedFraction) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        // A power of two, small enough that every stripe keeps a useful share of the capacity
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, capacity / MIN_STRIPE_CAPACITY)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // Spread the remainder so the stripes add up to exactly the capacity
+            int share = capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0);
+            stripes[i] = new Stripe<>(share, protectedFraction);
+        }
+        this.mask = stripeCount - 1;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    V get(K key) {
+        V value = stripeFor(key).get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Adds or replaces an entry. A replaced entry keeps its segment.
+     */
+    void put(K key, V value) {
+        stripeFor(key).put(key, value);
+    }
+
+    void remove(K key) {
+        stripeFor(key).remove(key);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16); // Spread high bits, as HashMap does
+        return stripes[h & mask];
+    }
+}
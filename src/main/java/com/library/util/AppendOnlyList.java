@@ -0,0 +1,51 @@
+package com.library.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list that only grows, readable without locking while one writer at a time appends.
+ *
+ * Appends are synchronized and amortized O(1): the backing array doubles when full, unlike a
+ * copy-on-write list that copies on every add. An element is written before the size that
+ * covers it is published, so a reader always sees every element below the size it read.
+ * Iterating while appends happen never throws; it sees the elements present when each step
+ * reads the size. Removal and replacement are not supported.
+ *
+ * @param <E> The element type
+ */
+public class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private volatile Object[] elements = new Object[INITIAL_CAPACITY];
+    private volatile int size;
+
+    @Override
+    public synchronized boolean add(E element) {
+        Object[] current = elements;
+        int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, n * 2);
+            elements = current;
+        }
+        current[n] = element;
+        size = n + 1; // Publishes the element
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        int n = size; // Read before the array, which then holds at least n elements
+        if (index < 0 || index >= n) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+        }
+        return (E) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks that keys are hashed onto. Operations on the same key serialize,
+ * operations on different keys rarely contend, and memory stays constant however many keys
+ * there are.
+ */
+public class StripedLock {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Creates the stripes.
+     * @param stripes The number of locks, must be a power of two
+     */
+    public StripedLock(int stripes) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two");
+        }
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = stripes - 1;
+    }
+
+    /**
+     * Gets the lock guarding a key.
+     * @param key The key
+     * @return The key's lock, shared with every key in the same stripe
+     */
+    public ReentrantLock forKey(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16); // Spread high bits, as HashMap does
+        return locks[h & mask];
+    }
+
+    /**
+     * Takes every stripe, in a fixed order so two callers doing this cannot deadlock.
+     * Must not be called while holding a single stripe.
+     */
+    public void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases every stripe taken by {@link #lockAll()}.
+     */
+    public void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}